@@ -0,0 +1,42 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs the JMH benchmarks of this package. Compiled only by the benchmark profile, run it with
+ * {@code mvn -P benchmark test}. A subset of the benchmarks is selected with {@code
+ * -Dbenchmark.include=<regular expression>}, and the fleet sizes of the benchmarks with {@code
+ * -Dbenchmark.nodeCount=<comma separated sizes>}.
+ */
+class BenchmarkRunner {
+
+    @Test
+    void runJmhBenchmarks() throws Exception {
+        String include = System.getProperty(
+                "benchmark.include", BenchmarkRunner.class.getPackage().getName() + "\\..*Benchmark");
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .warmupIterations(2)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(3)
+                .measurementTime(TimeValue.seconds(2))
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .forks(1)
+                .shouldFailOnError(true)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-report.json");
+        String nodeCount = System.getProperty("benchmark.nodeCount");
+        if (nodeCount != null) {
+            options.param("nodeCount", nodeCount.split(","));
+        }
+        new Runner(options.build()).run();
+    }
+}
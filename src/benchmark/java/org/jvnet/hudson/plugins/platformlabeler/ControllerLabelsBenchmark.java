@@ -0,0 +1,184 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.labels.LabelAtom;
+import hudson.slaves.DumbSlave;
+import hudson.slaves.JNLPLauncher;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.runner.Description;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Controller hot paths with a fleet of 1,000 to 20,000 agents: label lookup by the label finder,
+ * label computation of one node, label refresh of one node and of all nodes after a configuration
+ * change. The platforms of the agents are drawn from the release files in the test resources with
+ * a skewed distribution, as in fleets where a few platforms run most agents. The {@code
+ * contended} group measures label lookups while all nodes are being refreshed. Run with the GC
+ * profiler of {@link BenchmarkRunner} to compare allocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ControllerLabelsBenchmark {
+
+    /** Jenkins controller with the agents of the fleet. */
+    @State(Scope.Benchmark)
+    public static class Fleet {
+
+        @Param({"1000", "5000", "20000"})
+        public int nodeCount;
+
+        BenchmarkJenkinsRule rule;
+        NodeLabelCache nodeLabelCache;
+        PlatformLabeler platformLabeler;
+        Node[] nodes;
+        Computer[] computers;
+        PlatformDetails[] details;
+        PlatformDetails upgraded;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Throwable {
+            rule = new BenchmarkJenkinsRule();
+            rule.before();
+            nodeLabelCache = new NodeLabelCache();
+            platformLabeler = new PlatformLabeler();
+            List<PlatformDetails> platforms = readPlatforms();
+            List<Node> agents = new ArrayList<>(nodeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                agents.add(new DumbSlave("agent-" + i, "/home/jenkins/agent-" + i, new JNLPLauncher()));
+            }
+            rule.jenkins.setNodes(agents);
+            nodes = new Node[nodeCount];
+            computers = new Computer[nodeCount];
+            details = new PlatformDetails[nodeCount];
+            upgraded = new PlatformDetails("Ubuntu", "amd64", "26.04", null, "Linux");
+            /* A fixed seed gives every run the same fleet */
+            Random random = new Random(42L);
+            for (int i = 0; i < nodeCount; i++) {
+                nodes[i] = rule.jenkins.getNode("agent-" + i);
+                computers[i] = nodes[i].toComputer();
+                details[i] = platforms.get(skewedIndex(random, platforms.size()));
+                NodeLabelCache.cachePlatformDetails(computers[i].getName(), details[i]);
+                nodeLabelCache.refreshModel(computers[i]);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Throwable {
+            rule.after();
+        }
+
+        /* Most agents run one of the first few platforms */
+        private static int skewedIndex(Random random, int size) {
+            int index = (int) (-Math.log(1.0 - random.nextDouble()) * size / 8);
+            return Math.min(index, size - 1);
+        }
+
+        private static List<PlatformDetails> readPlatforms() throws Exception {
+            Path resources = Path.of(ControllerLabelsBenchmark.class
+                            .getResource("ubuntu")
+                            .toURI())
+                    .getParent();
+            List<PlatformDetails> platforms = new ArrayList<>();
+            try (Stream<Path> paths = Files.walk(resources)) {
+                for (Path path : paths.filter(p -> p.endsWith("os-release"))
+                        .sorted()
+                        .toList()) {
+                    FileRelease release = new FileRelease(null, path.toFile(), null, null);
+                    String arch = platforms.size() % 3 == 0 ? "aarch64" : "amd64";
+                    platforms.add(new PlatformDetails(
+                            release.distributorId(), arch, release.release(), null, "Linux"));
+                }
+            }
+            platforms.add(new PlatformDetails("windows", "amd64", "10.0", "2009", "Windows Server 2022"));
+            platforms.add(new PlatformDetails("mac", "aarch64", "14.5", null, "Mac OS X"));
+            return platforms;
+        }
+    }
+
+    /** Position of a benchmark thread in the fleet. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int nextIndex(Fleet fleet) {
+            next = (next + 1) % fleet.nodeCount;
+            return next;
+        }
+    }
+
+    /** Jenkins test rule started and stopped by the benchmark instead of a JUnit runner. */
+    static final class BenchmarkJenkinsRule extends JenkinsRule {
+        BenchmarkJenkinsRule() {
+            testDescription = Description.createTestDescription(ControllerLabelsBenchmark.class, "benchmark");
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Collection<LabelAtom> findLabels(Fleet fleet, Cursor cursor) {
+        return fleet.platformLabeler.findLabels(fleet.nodes[cursor.nextIndex(fleet)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Collection<LabelAtom> getLabelsForNode(Fleet fleet, Cursor cursor) {
+        return fleet.nodeLabelCache.getLabelsForNode(fleet.nodes[cursor.nextIndex(fleet)]);
+    }
+
+    @Benchmark
+    public void refreshModel(Fleet fleet, Cursor cursor) {
+        fleet.nodeLabelCache.refreshModel(fleet.computers[cursor.nextIndex(fleet)]);
+    }
+
+    /* Alternates each node between its platform and an upgraded one, so that labels are computed */
+    @Benchmark
+    public void refreshModelChanged(Fleet fleet, Cursor cursor) {
+        int index = cursor.nextIndex(fleet);
+        Computer computer = fleet.computers[index];
+        PlatformDetails current = NodeLabelCache.getCachedPlatformDetails(computer.getName());
+        NodeLabelCache.cachePlatformDetails(
+                computer.getName(), fleet.upgraded.equals(current) ? fleet.details[index] : fleet.upgraded);
+        fleet.nodeLabelCache.refreshModel(computer);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void onConfigurationChange(Fleet fleet) {
+        fleet.nodeLabelCache.onConfigurationChange();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Collection<LabelAtom> contendedFindLabels(Fleet fleet, Cursor cursor) {
+        return fleet.platformLabeler.findLabels(fleet.nodes[cursor.nextIndex(fleet)]);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void contendedOnConfigurationChange(Fleet fleet) {
+        fleet.nodeLabelCache.onConfigurationChange();
+    }
+}
@@ -0,0 +1,159 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import hudson.model.labels.LabelAtom;
+import java.lang.ref.Reference;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of computing the labels of every node in a fleet that runs a small number of distinct
+ * platforms. Compares the shared label sets of {@link PlatformLabelSets} with building a new label
+ * set for each node. Run with the GC profiler to compare allocation per refresh. The {@code
+ * retained} benchmarks report the heap retained by the label sets of the whole fleet, measured as
+ * the used heap after garbage collection with and without the label sets of the fleet.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LabelSetsBenchmark {
+
+    /** Platforms commonly found together in one fleet. */
+    private static final PlatformDetails[] PLATFORMS = {
+        new PlatformDetails("Ubuntu", "amd64", "24.04", null, "Linux"),
+        new PlatformDetails("Ubuntu", "amd64", "22.04", null, "Linux"),
+        new PlatformDetails("Ubuntu", "aarch64", "24.04", null, "Linux"),
+        new PlatformDetails("Debian", "amd64", "12", null, "Linux"),
+        new PlatformDetails("Debian", "aarch64", "12", null, "Linux"),
+        new PlatformDetails("RedHatEnterprise", "amd64", "9", null, "Linux"),
+        new PlatformDetails("Rocky", "amd64", "9", null, "Linux"),
+        new PlatformDetails("AlmaLinux", "amd64", "8", null, "Linux"),
+        new PlatformDetails("windows", "amd64", "10.0", "2009", "Windows Server 2022"),
+        new PlatformDetails("mac", "aarch64", "14.5", null, "Mac OS X"),
+    };
+
+    /** Platform details of each node in the fleet. */
+    @State(Scope.Benchmark)
+    public static class Fleet {
+
+        @Param({"10000"})
+        public int nodeCount;
+
+        PlatformDetails[] nodeDetails;
+        LabelConfig labelConfig;
+        PlatformLabelSets labelSets;
+        /* Stands in for the label atoms interned by Jenkins */
+        Map<String, LabelAtom> labelAtoms;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            nodeDetails = new PlatformDetails[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                /* Copy so that nodes hold equal but not identical details, as after separate probes */
+                PlatformDetails platform = PLATFORMS[i % PLATFORMS.length];
+                nodeDetails[i] = new PlatformDetails(
+                        platform.getName(),
+                        platform.getArchitecture(),
+                        platform.getVersion(),
+                        platform.getWindowsFeatureUpdate(),
+                        platform.getOsName());
+            }
+            labelConfig = new LabelConfig();
+            labelAtoms = new ConcurrentHashMap<>();
+            labelSets = new PlatformLabelSets(this::getLabelAtom);
+            /* Label atoms belong to Jenkins, create them before measuring the retained heap */
+            for (PlatformDetails details : nodeDetails) {
+                newLabelSet(this, details);
+            }
+        }
+
+        LabelAtom getLabelAtom(String name) {
+            return labelAtoms.computeIfAbsent(name, LabelAtom::new);
+        }
+    }
+
+    @Benchmark
+    public void sharedLabelSets(Fleet fleet, Blackhole blackhole) {
+        for (PlatformDetails details : fleet.nodeDetails) {
+            blackhole.consume(fleet.labelSets.get(details, fleet.labelConfig));
+        }
+    }
+
+    @Benchmark
+    public void labelSetPerNode(Fleet fleet, Blackhole blackhole) {
+        for (PlatformDetails details : fleet.nodeDetails) {
+            blackhole.consume(newLabelSet(fleet, details));
+        }
+    }
+
+    /** Heap retained by the label sets of the fleet, reported as a secondary result. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedHeap {
+        public long retainedBytes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public void retainedSharedLabelSets(Fleet fleet, RetainedHeap heap) {
+        long before = usedHeapAfterGc();
+        /* A new cache, so that the label sets of earlier invocations are not counted as shared */
+        PlatformLabelSets labelSets = new PlatformLabelSets(fleet::getLabelAtom);
+        Object[] retained = new Object[fleet.nodeDetails.length];
+        for (int i = 0; i < retained.length; i++) {
+            retained[i] = labelSets.get(fleet.nodeDetails[i], fleet.labelConfig);
+        }
+        heap.retainedBytes = usedHeapAfterGc() - before;
+        Reference.reachabilityFence(retained);
+        Reference.reachabilityFence(labelSets);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public void retainedLabelSetPerNode(Fleet fleet, RetainedHeap heap) {
+        long before = usedHeapAfterGc();
+        Object[] retained = new Object[fleet.nodeDetails.length];
+        for (int i = 0; i < retained.length; i++) {
+            retained[i] = newLabelSet(fleet, fleet.nodeDetails[i]);
+        }
+        heap.retainedBytes = usedHeapAfterGc() - before;
+        Reference.reachabilityFence(retained);
+    }
+
+    private static Collection<LabelAtom> newLabelSet(Fleet fleet, PlatformDetails details) {
+        Collection<LabelAtom> labels = new HashSet<>();
+        labels.add(fleet.getLabelAtom(details.getArchitecture()));
+        labels.add(fleet.getLabelAtom(details.getName()));
+        labels.add(fleet.getLabelAtom(details.getVersion()));
+        labels.add(fleet.getLabelAtom(details.getNameVersion()));
+        labels.add(fleet.getLabelAtom(details.getArchitectureName()));
+        labels.add(fleet.getLabelAtom(details.getArchitectureNameVersion()));
+        if (details.getOsName() != null) {
+            labels.add(fleet.getLabelAtom(details.getOsName()));
+        }
+        return labels;
+    }
+
+    /* Repeated collections let the used heap settle, a single System.gc() is only a hint */
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,105 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.labels.LabelAtom;
+import hudson.slaves.DumbSlave;
+import hudson.slaves.JNLPLauncher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Label lookup throughput of {@link PlatformLabeler#findLabels} while the labels of the fleet are
+ * refreshed concurrently by {@link NodeLabelCache#refreshModel}. The refresh threads alternate each
+ * node between two platforms so that every refresh computes and publishes new labels, the worst
+ * case for readers of the node label cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class NodeLabelsBenchmark {
+
+    /** Jenkins controller with the agents of the fleet, shared by all benchmark threads. */
+    @State(Scope.Group)
+    public static class Fleet {
+
+        @Param({"5000"})
+        public int nodeCount;
+
+        ControllerLabelsBenchmark.BenchmarkJenkinsRule rule;
+        NodeLabelCache nodeLabelCache;
+        PlatformLabeler platformLabeler;
+        Node[] nodes;
+        Computer[] computers;
+        PlatformDetails current;
+        PlatformDetails upgraded;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Throwable {
+            rule = new ControllerLabelsBenchmark.BenchmarkJenkinsRule();
+            rule.before();
+            nodeLabelCache = new NodeLabelCache();
+            platformLabeler = new PlatformLabeler();
+            List<Node> agents = new ArrayList<>(nodeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                agents.add(new DumbSlave("agent-" + i, "/home/jenkins/agent-" + i, new JNLPLauncher()));
+            }
+            rule.jenkins.setNodes(agents);
+            current = new PlatformDetails("Ubuntu", "amd64", "24.04", null, "Linux");
+            upgraded = new PlatformDetails("Ubuntu", "amd64", "26.04", null, "Linux");
+            nodes = new Node[nodeCount];
+            computers = new Computer[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                nodes[i] = rule.jenkins.getNode("agent-" + i);
+                computers[i] = nodes[i].toComputer();
+                NodeLabelCache.cachePlatformDetails(computers[i].getName(), current);
+                nodeLabelCache.refreshModel(computers[i]);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Throwable {
+            rule.after();
+        }
+    }
+
+    /** Position of a benchmark thread in the fleet. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int nextIndex(Fleet fleet) {
+            next = (next + 1) % fleet.nodeCount;
+            return next;
+        }
+    }
+
+    @Benchmark
+    @Group("refreshing")
+    @GroupThreads(4)
+    public Collection<LabelAtom> findLabels(Fleet fleet, Cursor cursor) {
+        return fleet.platformLabeler.findLabels(fleet.nodes[cursor.nextIndex(fleet)]);
+    }
+
+    /* Two refresh threads, so that refreshes of different nodes also run concurrently */
+    @Benchmark
+    @Group("refreshing")
+    @GroupThreads(2)
+    public void refreshModel(Fleet fleet, Cursor cursor) {
+        Computer computer = fleet.computers[cursor.nextIndex(fleet)];
+        PlatformDetails cached = NodeLabelCache.getCachedPlatformDetails(computer.getName());
+        NodeLabelCache.cachePlatformDetails(
+                computer.getName(), fleet.upgraded.equals(cached) ? fleet.current : fleet.upgraded);
+        fleet.nodeLabelCache.refreshModel(computer);
+    }
+}
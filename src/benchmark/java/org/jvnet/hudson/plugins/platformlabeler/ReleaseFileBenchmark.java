@@ -0,0 +1,126 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of the release file lookups of one probe for every release file in the test resources.
+ * Compares reading each file once into a {@link ReleaseFile} with the previous parsing, which
+ * reread the file for each field and compiled the SUSE pattern on each call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReleaseFileBenchmark {
+
+    private static final String[] OS_RELEASE_FIELDS = {"ID", "VERSION_ID", "BUILD_ID"};
+    private static final String[] REDHAT_RELEASE_FIELDS = {"ID", "VERSION_ID"};
+    private static final String RELEASE = "release";
+    private static final Pattern SUSE_NAME_PATTERN = Pattern.compile("^(SUSE.*?)\\d+.*$");
+
+    /** Release files stored in the test resources. */
+    @State(Scope.Benchmark)
+    public static class Resources {
+
+        List<File> osReleases;
+        List<File> redhatReleases;
+        List<File> suseReleases;
+
+        @Setup
+        public void setUp() throws Exception {
+            Path root = Path.of(ReleaseFileBenchmark.class.getResource("ubuntu").toURI()).getParent();
+            osReleases = find(root, "os-release");
+            redhatReleases = find(root, "redhat-release");
+            suseReleases = find(root, "SuSE-release");
+        }
+
+        private static List<File> find(Path root, String fileName) throws IOException {
+            try (Stream<Path> paths = Files.walk(root)) {
+                return paths.filter(path -> path.getFileName().toString().equals(fileName))
+                        .map(Path::toFile)
+                        .toList();
+            }
+        }
+    }
+
+    @Benchmark
+    public void readOnce(Resources resources, Blackhole blackhole) {
+        for (File file : resources.osReleases) {
+            ReleaseFile release = ReleaseFile.read(file);
+            for (String field : OS_RELEASE_FIELDS) {
+                blackhole.consume(release.get(field));
+            }
+        }
+        for (File file : resources.redhatReleases) {
+            for (String line : ReleaseFile.read(file).getLines()) {
+                blackhole.consume(line.contains(RELEASE));
+            }
+        }
+        for (File file : resources.suseReleases) {
+            for (String line : ReleaseFile.read(file).getLines()) {
+                blackhole.consume(SUSE_NAME_PATTERN.matcher(line.trim()).matches());
+            }
+        }
+    }
+
+    @Benchmark
+    public void readPerField(Resources resources, Blackhole blackhole) throws IOException {
+        for (File file : resources.osReleases) {
+            for (String field : OS_RELEASE_FIELDS) {
+                blackhole.consume(readField(file, field));
+            }
+        }
+        for (File file : resources.redhatReleases) {
+            for (String field : REDHAT_RELEASE_FIELDS) {
+                try (BufferedReader br = Files.newBufferedReader(file.toPath())) {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        blackhole.consume(field.equals("ID") && line.contains(RELEASE));
+                    }
+                }
+            }
+        }
+        for (File file : resources.suseReleases) {
+            for (String field : REDHAT_RELEASE_FIELDS) {
+                Pattern pattern = Pattern.compile("^(SUSE.*?)\\d+.*$");
+                try (BufferedReader br = Files.newBufferedReader(file.toPath())) {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        Matcher matcher = pattern.matcher(line.trim());
+                        blackhole.consume(matcher.matches() ? field : line);
+                    }
+                }
+            }
+        }
+    }
+
+    /* Field lookup as previously done by PlatformDetailsTask.getReleaseIdentifier */
+    private static String readField(File file, String field) throws IOException {
+        String value = PlatformDetailsTask.UNKNOWN_VALUE_STRING;
+        try (BufferedReader br = Files.newBufferedReader(file.toPath())) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.startsWith(field + "=")) {
+                    String[] parts = line.split("=");
+                    value = parts[1].replace("\"", "").trim();
+                }
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,132 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads the processor count and memory size of the agent, and formats them as tiered capacity
+ * labels. Tiers are powers of two so that a fleet of many machine sizes contributes few labels.
+ */
+final class AgentCapacity {
+
+    private static final Logger LOGGER = Logger.getLogger(AgentCapacity.class.getName());
+
+    /** Linux memory summary, its MemTotal line is the installed memory usable by the kernel. */
+    static final String MEMINFO_FILE = "/proc/meminfo";
+
+    private static final long KIB = 1024L;
+    private static final long GIB = 1024L * 1024L * 1024L;
+
+    private AgentCapacity() {
+        /* Static methods only */
+    }
+
+    /**
+     * Returns the number of logical processors available to the agent JVM.
+     *
+     * @return number of logical processors
+     */
+    static int cpuCount() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Returns the total memory of the agent, read from /proc/meminfo on Linux and from the JVM on
+     * other operating systems.
+     *
+     * @return total memory in bytes, 0 if unknown
+     */
+    static long memoryBytes() {
+        long bytes = readMemTotal(new File(MEMINFO_FILE));
+        return bytes > 0 ? bytes : jvmMemoryBytes();
+    }
+
+    /* Package protected for tests */
+    static long readMemTotal(@NonNull File meminfo) {
+        if (!meminfo.isFile()) {
+            return 0L;
+        }
+        try {
+            for (String line : Files.readAllLines(meminfo.toPath(), StandardCharsets.US_ASCII)) {
+                if (line.startsWith("MemTotal:")) {
+                    String[] fields = line.substring("MemTotal:".length()).trim().split("\\s+");
+                    return Long.parseLong(fields[0]) * KIB;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.log(Level.FINEST, "Unable to read " + meminfo, e);
+        }
+        return 0L;
+    }
+
+    private static long jvmMemoryBytes() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            return Math.max(0L, sunOs.getTotalMemorySize());
+        }
+        return 0L;
+    }
+
+    /**
+     * Returns the CPU tier label, like "cpu-32" for 32 to 63 logical processors.
+     *
+     * @param cpuCount number of logical processors, 0 if unknown
+     * @return CPU tier label, or null if the count is unknown
+     */
+    @CheckForNull
+    static String cpuLabel(int cpuCount) {
+        return cpuCount <= 0 ? null : "cpu-" + cpuTier(cpuCount);
+    }
+
+    /**
+     * Returns the memory tier label, like "mem-64g". The kernel and firmware reserve part of the
+     * installed memory, so a 64 GiB machine that reports 62.8 GiB is still in the 64 GiB tier.
+     *
+     * @param memoryBytes total memory in bytes, 0 if unknown
+     * @return memory tier label, or null if the memory is unknown
+     */
+    @CheckForNull
+    static String memoryLabel(long memoryBytes) {
+        return memoryBytes <= 0 ? null : "mem-" + memoryTier(memoryBytes) + "g";
+    }
+
+    /**
+     * Returns the CPU quota tier label, like "cpu-limit-4" for a quota of 4 to 7 processors.
+     *
+     * @param cpuLimit number of processors allowed by the CPU quota, 0 if none
+     * @return CPU quota tier label, or null if there is no quota
+     */
+    @CheckForNull
+    static String cpuLimitLabel(int cpuLimit) {
+        return cpuLimit <= 0 ? null : "cpu-limit-" + cpuTier(cpuLimit);
+    }
+
+    /**
+     * Returns the memory limit tier label, like "mem-limit-8g".
+     *
+     * @param memoryLimitBytes memory limit in bytes, 0 if none
+     * @return memory limit tier label, or null if there is no limit
+     */
+    @CheckForNull
+    static String memoryLimitLabel(long memoryLimitBytes) {
+        return memoryLimitBytes <= 0 ? null : "mem-limit-" + memoryTier(memoryLimitBytes) + "g";
+    }
+
+    private static int cpuTier(int cpus) {
+        return Integer.highestOneBit(cpus);
+    }
+
+    private static long memoryTier(long bytes) {
+        /* Allow 10% reserved memory before falling to the next lower tier */
+        long gib = (bytes + bytes / 10) / GIB;
+        return Math.max(1L, Long.highestOneBit(gib));
+    }
+}
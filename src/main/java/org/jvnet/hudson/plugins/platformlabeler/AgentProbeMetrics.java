@@ -0,0 +1,50 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/** Duration of the last platform probe of one agent and the phase timings reported by the agent. */
+@ExportedBean(defaultVisibility = 2)
+public final class AgentProbeMetrics {
+
+    private final String name;
+    private final long lastProbeNanos;
+    private final long timestamp;
+    private final List<Timing> phases;
+
+    AgentProbeMetrics(@NonNull String name, long lastProbeNanos, long timestamp, @NonNull List<Timing> phases) {
+        this.name = name;
+        this.lastProbeNanos = lastProbeNanos;
+        this.timestamp = timestamp;
+        this.phases = List.copyOf(phases);
+    }
+
+    /** Name of the agent. */
+    @Exported
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /** Round trip time of the last platform probe of the agent in milliseconds. */
+    @Exported
+    public long getLastProbeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastProbeNanos);
+    }
+
+    /** Time of the last platform probe of the agent in milliseconds since the epoch. */
+    @Exported
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /** Timings of the probe phases run on the agent since the agent connected. */
+    @Exported(inline = true)
+    @NonNull
+    public List<Timing> getPhases() {
+        return phases;
+    }
+}
@@ -0,0 +1,48 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Timings of the phases of the platform probe (commands and release file reads) in the JVM that
+ * runs the probe. On an agent the counters live in the remoting class loader of the agent and are
+ * sent to the controller with each {@link PlatformProbe}.
+ */
+final class AgentTimings {
+
+    /** Phase name of the release file reads. */
+    static final String FILE_READS = "file reads";
+
+    private static final ConcurrentMap<String, Timing> TIMINGS = new ConcurrentHashMap<>();
+
+    private AgentTimings() {
+        /* Static methods only */
+    }
+
+    /**
+     * Returns the timing of the phase, creating it on first use.
+     *
+     * @param phase name of the phase, the command name for commands
+     * @return timing of the phase
+     */
+    @NonNull
+    static Timing get(@NonNull String phase) {
+        return TIMINGS.computeIfAbsent(phase, Timing::new);
+    }
+
+    /**
+     * Returns copies of the timings of all phases, sorted by phase name.
+     *
+     * @return copies of the phase timings
+     */
+    @NonNull
+    static ArrayList<Timing> snapshot() {
+        ArrayList<Timing> timings = new ArrayList<>();
+        TIMINGS.values().forEach(timing -> timings.add(timing.copy()));
+        timings.sort(Comparator.comparing(Timing::getName));
+        return timings;
+    }
+}
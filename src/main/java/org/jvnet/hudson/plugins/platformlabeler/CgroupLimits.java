@@ -0,0 +1,183 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * CPU quota and memory limit of the control group of the agent. A container on a 64 processor
+ * host may be allowed only 4 processors, so the limits are what builds on the agent actually get.
+ * Reads cgroup v2 (unified hierarchy) and cgroup v1 controller files.
+ */
+final class CgroupLimits {
+
+    private static final Logger LOGGER = Logger.getLogger(CgroupLimits.class.getName());
+
+    /** Mount point of the control group file system on Linux. */
+    static final String CGROUP_ROOT = "/sys/fs/cgroup";
+
+    /** Control groups of the reading process, the cgroup v2 group is on the line starting with "0::". */
+    static final String SELF_CGROUP = "/proc/self/cgroup";
+
+    /** No CPU quota and no memory limit. */
+    static final CgroupLimits NONE = new CgroupLimits(0, 0L);
+
+    /** cgroup v1 reports an unlimited memory limit as a page aligned value close to Long.MAX_VALUE. */
+    private static final long UNLIMITED_MEMORY = Long.MAX_VALUE / 2;
+
+    /** Directories of the cgroup v1 CPU controller, depending on how the controllers are mounted. */
+    private static final List<String> V1_CPU_DIRS = List.of("cpu", "cpu,cpuacct", "cpuacct,cpu");
+
+    private final int cpuLimit;
+    private final long memoryLimitBytes;
+
+    private CgroupLimits(int cpuLimit, long memoryLimitBytes) {
+        this.cpuLimit = cpuLimit;
+        this.memoryLimitBytes = memoryLimitBytes;
+    }
+
+    /**
+     * Returns the number of processors the CPU quota allows, rounded up.
+     *
+     * @return number of processors, 0 if there is no CPU quota
+     */
+    int getCpuLimit() {
+        return cpuLimit;
+    }
+
+    /**
+     * Returns the memory limit.
+     *
+     * @return memory limit in bytes, 0 if there is no memory limit
+     */
+    long getMemoryLimitBytes() {
+        return memoryLimitBytes;
+    }
+
+    /**
+     * Reads the limits of the control group of the agent JVM.
+     *
+     * @return limits of the control group, {@link #NONE} if there is no control group file system
+     */
+    @NonNull
+    static CgroupLimits read() {
+        return read(new File(CGROUP_ROOT), new File(SELF_CGROUP));
+    }
+
+    /**
+     * Reads the limits of a control group.
+     *
+     * @param root mount point of the control group file system, like /sys/fs/cgroup
+     * @param selfCgroup file listing the control groups of the process, like /proc/self/cgroup
+     * @return limits of the control group, {@link #NONE} if there is no control group file system
+     */
+    @NonNull
+    static CgroupLimits read(@NonNull File root, @NonNull File selfCgroup) {
+        if (!root.isDirectory()) {
+            return NONE;
+        }
+        if (new File(root, "cgroup.controllers").isFile()) {
+            /* Inside a container the group is the root, outside it may be a systemd service group */
+            String path = v2Path(selfCgroup);
+            File group = path == null ? root : new File(root, path);
+            return readV2(group.isDirectory() ? group : root);
+        }
+        return readV1(root);
+    }
+
+    @CheckForNull
+    private static String v2Path(@NonNull File selfCgroup) {
+        if (!selfCgroup.isFile()) {
+            return null;
+        }
+        try {
+            for (String line : Files.readAllLines(selfCgroup.toPath(), StandardCharsets.US_ASCII)) {
+                if (line.startsWith("0::")) {
+                    return line.substring("0::".length()).trim();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINEST, "Unable to read " + selfCgroup, e);
+        }
+        return null;
+    }
+
+    @NonNull
+    private static CgroupLimits readV2(@NonNull File group) {
+        int cpuLimit = 0;
+        /* "max 100000" without a quota, "400000 100000" for 4 processors */
+        String cpuMax = readLine(new File(group, "cpu.max"));
+        if (cpuMax != null) {
+            String[] fields = cpuMax.split("\\s+");
+            if (fields.length == 2) {
+                cpuLimit = cpus(parseLong(fields[0]), parseLong(fields[1]));
+            }
+        }
+        long memoryLimit = memory(parseLong(readLine(new File(group, "memory.max"))));
+        return new CgroupLimits(cpuLimit, memoryLimit);
+    }
+
+    @NonNull
+    private static CgroupLimits readV1(@NonNull File root) {
+        int cpuLimit = 0;
+        for (String dir : V1_CPU_DIRS) {
+            File cpu = new File(root, dir);
+            if (cpu.isDirectory()) {
+                /* The quota is -1 without a limit */
+                cpuLimit = cpus(
+                        parseLong(readLine(new File(cpu, "cpu.cfs_quota_us"))),
+                        parseLong(readLine(new File(cpu, "cpu.cfs_period_us"))));
+                break;
+            }
+        }
+        long memoryLimit = memory(parseLong(readLine(new File(root, "memory/memory.limit_in_bytes"))));
+        return new CgroupLimits(cpuLimit, memoryLimit);
+    }
+
+    private static int cpus(long quota, long period) {
+        if (quota <= 0 || period <= 0) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (quota + period - 1) / period);
+    }
+
+    private static long memory(long limit) {
+        return limit <= 0 || limit >= UNLIMITED_MEMORY ? 0L : limit;
+    }
+
+    /* Returns 0 for "max" and for values that are not numbers */
+    private static long parseLong(@CheckForNull String value) {
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    @CheckForNull
+    private static String readLine(@NonNull File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return Files.readString(file.toPath(), StandardCharsets.US_ASCII).trim();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINEST, "Unable to read " + file, e);
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CgroupLimits[cpuLimit=" + cpuLimit + ", memoryLimitBytes=" + memoryLimitBytes + "]";
+    }
+}
@@ -0,0 +1,71 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.remoting.Callable;
+import java.io.IOException;
+import java.io.Serial;
+import jenkins.security.Roles;
+import org.jenkinsci.remoting.RoleChecker;
+
+/**
+ * Compute platform details only if the agent fingerprint differs from the fingerprint that the
+ * controller already has. Lets the node monitor check agents each cycle without starting
+ * lsb_release or any other process on agents that have not changed. The fingerprint is computed
+ * once and returned with the details, so the controller needs no second call to record it.
+ */
+class ChangedPlatformDetailsTask implements Callable<PlatformProbe, IOException> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final PlatformFingerprint expected;
+    private final boolean fastProbe;
+
+    /**
+     * Create a task that probes the agent only if its fingerprint changed.
+     *
+     * @param expected fingerprint of the agent known to the controller, or null to always probe
+     * @param fastProbe true to read Linux release details from release files if possible
+     */
+    ChangedPlatformDetailsTask(@CheckForNull PlatformFingerprint expected, boolean fastProbe) {
+        this.expected = expected;
+        this.fastProbe = fastProbe;
+    }
+
+    /**
+     * Returns true if the task skips the probe of an agent whose fingerprint is unchanged.
+     *
+     * @return true if the task checks the fingerprint of the agent
+     */
+    boolean isFingerprintCheck() {
+        return expected != null;
+    }
+
+    /**
+     * Checks that required SLAVE role is allowed.
+     *
+     * @param checker role checker to be called to check SLAVE role
+     * @throws SecurityException on a security error
+     */
+    @Override
+    public void checkRoles(final RoleChecker checker) throws SecurityException {
+        checker.check(this, Roles.SLAVE);
+    }
+
+    /**
+     * Returns the fingerprint of the agent with its platform details, or without details if the
+     * fingerprint is unchanged, and the timings of the probe phases run on the agent.
+     *
+     * @return fingerprint and platform details, the details are null if the agent has not changed
+     * @throws IOException on I/O error
+     */
+    @Override
+    public PlatformProbe call() throws IOException {
+        PlatformFingerprint fingerprint = new PlatformFingerprintTask().call();
+        if (fingerprint.matches(expected)) {
+            return new PlatformProbe(fingerprint, null, AgentTimings.snapshot());
+        }
+        PlatformDetails details = new PlatformDetailsTask(fastProbe).call();
+        return new PlatformProbe(fingerprint, details, AgentTimings.snapshot());
+    }
+}
@@ -0,0 +1,160 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the external commands of the platform probe on the agent. Every command has a deadline,
+ * its standard output and standard error are drained concurrently so that a full pipe cannot
+ * block it, and it is destroyed with its descendants when the deadline passes. Duration, failures
+ * and timeouts are recorded for each command.
+ */
+final class CommandRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(CommandRunner.class.getName());
+
+    /** Default deadline of a command in milliseconds. */
+    static final long DEFAULT_TIMEOUT_MILLIS =
+            Long.getLong(CommandRunner.class.getName() + ".timeoutMillis", 10_000L);
+
+    /** Output beyond this size is drained but discarded. */
+    private static final int MAX_OUTPUT_BYTES = 1024 * 1024;
+
+    /** Time allowed to finish draining the output once the command has ended. */
+    private static final long DRAIN_GRACE_MILLIS = 1000L;
+
+    private static final ExecutorService DRAINERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "PlatformLabeler command output");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CommandRunner() {
+        /* Static methods only */
+    }
+
+    /**
+     * Run the command with the default deadline.
+     *
+     * @param command command and its arguments
+     * @return standard output of the command
+     * @throws IOException if the command could not be started or did not finish before its deadline
+     * @throws InterruptedException if interrupted while waiting for the command
+     */
+    @NonNull
+    static Result run(@NonNull String... command) throws IOException, InterruptedException {
+        return run(DEFAULT_TIMEOUT_MILLIS, command);
+    }
+
+    /**
+     * Run the command and wait at most timeoutMillis for it to finish.
+     *
+     * @param timeoutMillis deadline of the command in milliseconds
+     * @param command command and its arguments
+     * @return standard output of the command
+     * @throws IOException if the command could not be started or did not finish before its deadline
+     * @throws InterruptedException if interrupted while waiting for the command
+     */
+    @NonNull
+    static Result run(long timeoutMillis, @NonNull String... command) throws IOException, InterruptedException {
+        Timing timing = AgentTimings.get(command[0]);
+        long start = System.nanoTime();
+        Process process;
+        try {
+            process = new ProcessBuilder(command).start();
+        } catch (IOException e) {
+            timing.recordFailure();
+            throw e;
+        }
+        Future<byte[]> stdout = DRAINERS.submit(() -> drain(process.getInputStream()));
+        Future<byte[]> stderr = DRAINERS.submit(() -> drain(process.getErrorStream()));
+        try {
+            /* The probe commands read no input */
+            process.getOutputStream().close();
+            if (!process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                timing.recordTimeout();
+                throw new IOException(
+                        "Command " + Arrays.toString(command) + " did not finish within " + timeoutMillis + " ms");
+            }
+            byte[] output = await(stdout);
+            if (LOGGER.isLoggable(Level.FINEST)) {
+                LOGGER.log(Level.FINEST, "Command {0} exited with {1}, error output: {2}", new Object[] {
+                    Arrays.toString(command), process.exitValue(), new String(await(stderr), StandardCharsets.UTF_8)
+                });
+            }
+            return new Result(process.exitValue(), output);
+        } finally {
+            timing.record(System.nanoTime() - start);
+            if (process.isAlive()) {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+            stdout.cancel(true);
+            stderr.cancel(true);
+        }
+    }
+
+    private static byte[] drain(InputStream stream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (stream) {
+            int count;
+            while ((count = stream.read(buffer)) != -1) {
+                int kept = Math.min(count, MAX_OUTPUT_BYTES - output.size());
+                if (kept > 0) {
+                    output.write(buffer, 0, kept);
+                }
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] await(Future<byte[]> output) throws IOException, InterruptedException {
+        try {
+            return output.get(DRAIN_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } catch (TimeoutException e) {
+            /* A descendant of the command still holds the pipe open */
+            throw new IOException("Output of command not closed", e);
+        }
+    }
+
+    /** Exit value and standard output of a finished command. */
+    static final class Result {
+        private final int exitValue;
+        private final byte[] output;
+
+        Result(int exitValue, @NonNull byte[] output) {
+            this.exitValue = exitValue;
+            this.output = output.clone();
+        }
+
+        int getExitValue() {
+            return exitValue;
+        }
+
+        /**
+         * Returns a new stream of the standard output of the command.
+         *
+         * @return standard output of the command
+         */
+        @NonNull
+        InputStream getOutput() {
+            return new ByteArrayInputStream(output);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads the instruction set extensions of the agent processor from /proc/cpuinfo. Only a curated
+ * set of extensions that native builds and benchmarks select on is kept, so the platform details
+ * stay small although the kernel reports more than a hundred flags per processor.
+ */
+final class CpuFeatures {
+
+    private static final Logger LOGGER = Logger.getLogger(CpuFeatures.class.getName());
+
+    /** Linux processor description, flags of x86 processors and Features of ARM processors. */
+    static final String CPUINFO_FILE = "/proc/cpuinfo";
+
+    /** Extensions reported by the agent, the /proc/cpuinfo names of x86 and ARM processors. */
+    static final Set<String> KNOWN_FEATURES = Set.of(
+            /* x86 */
+            "sse4_2",
+            "avx",
+            "avx2",
+            "fma",
+            "bmi2",
+            "avx512f",
+            "avx512cd",
+            "avx512bw",
+            "avx512dq",
+            "avx512vl",
+            "avx512_vnni",
+            "avx512_bf16",
+            "avx_vnni",
+            "amx_tile",
+            "sha_ni",
+            "vaes",
+            "vpclmulqdq",
+            /* x86 and ARM */
+            "aes",
+            /* ARM */
+            "asimd",
+            "atomics",
+            "crc32",
+            "pmull",
+            "sha2",
+            "sha512",
+            "i8mm",
+            "bf16",
+            "sve",
+            "sve2");
+
+    private CpuFeatures() {
+        /* Static methods only */
+    }
+
+    /**
+     * Returns the known extensions of the agent processor.
+     *
+     * @return sorted space separated extensions, empty if none are known or the operating system
+     *     has no /proc/cpuinfo
+     */
+    @NonNull
+    static String read() {
+        return read(new File(CPUINFO_FILE));
+    }
+
+    /* Package protected for tests */
+    @NonNull
+    static String read(@NonNull File cpuinfo) {
+        if (!cpuinfo.isFile()) {
+            return "";
+        }
+        try {
+            /* Every processor has the same flags, the first one is enough */
+            for (String line : Files.readAllLines(cpuinfo.toPath(), StandardCharsets.US_ASCII)) {
+                int colon = line.indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String key = line.substring(0, colon).trim();
+                if (key.equals("flags") || key.equals("Features")) {
+                    Set<String> features = new TreeSet<>(parse(line.substring(colon + 1)));
+                    features.retainAll(KNOWN_FEATURES);
+                    return String.join(" ", features);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINEST, "Unable to read " + cpuinfo, e);
+        }
+        return "";
+    }
+
+    /**
+     * Splits a list of extensions separated by spaces or commas, like "avx2, avx512f".
+     *
+     * @param features extensions, may be null
+     * @return lower case extensions in the order they are listed
+     */
+    @NonNull
+    static List<String> parse(@CheckForNull String features) {
+        List<String> result = new ArrayList<>();
+        if (features == null) {
+            return result;
+        }
+        for (String feature : features.trim().split("[\\s,]+")) {
+            if (!feature.isEmpty()) {
+                result.add(feature.toLowerCase(Locale.ENGLISH));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the label of an extension, like "cpu-avx2".
+     *
+     * @param feature extension of the processor
+     * @return label of the extension
+     */
+    @NonNull
+    static String label(@NonNull String feature) {
+        return "cpu-" + feature;
+    }
+}
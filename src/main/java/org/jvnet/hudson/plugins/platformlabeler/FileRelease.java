@@ -0,0 +1,124 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+
+/**
+ * Linux release details read from /etc/lsb-release, /etc/os-release, /etc/redhat-release and
+ * /etc/debian_version without starting any processes. Reports the names that the full probe
+ * reports when lsb_release is not installed. Those are the names of {@link LsbRelease} except on
+ * distributions whose lsb_release names them differently than their release files, like AlmaLinux
+ * 8 ("AlmaLinux" instead of "Alma") and Debian testing ("testing" instead of the codename).
+ */
+class FileRelease implements PlatformDetailsRelease {
+
+    private static final String RELEASE = "release";
+
+    @NonNull
+    private final String distributorId;
+
+    @NonNull
+    private final String release;
+
+    /**
+     * Read distributor ID and release from the release files.
+     *
+     * @param lsbRelease lsb-release file, or null to ignore it
+     * @param osRelease os-release file, or null to ignore it
+     * @param redhatRelease redhat-release file, or null to ignore it
+     * @param debianVersion debian_version file, or null to ignore it
+     */
+    FileRelease(
+            @CheckForNull File lsbRelease,
+            @CheckForNull File osRelease,
+            @CheckForNull File redhatRelease,
+            @CheckForNull File debianVersion) {
+        this(
+                ReleaseFile.read(lsbRelease),
+                ReleaseFile.read(osRelease),
+                ReleaseFile.read(redhatRelease),
+                ReleaseFile.read(debianVersion));
+    }
+
+    /**
+     * Take distributor ID and release from release files that were already read.
+     *
+     * @param lsb contents of the lsb-release file
+     * @param os contents of the os-release file
+     * @param redhat contents of the redhat-release file
+     * @param debian contents of the debian_version file
+     */
+    FileRelease(
+            @NonNull ReleaseFile lsb,
+            @NonNull ReleaseFile os,
+            @NonNull ReleaseFile redhat,
+            @NonNull ReleaseFile debian) {
+        String id = lsb.get("DISTRIB_ID");
+        String version = lsb.get("DISTRIB_RELEASE");
+        if (id == null || version == null) {
+            /* Both values must come from the same file */
+            id = PlatformDetailsTask.preferredLinuxOsName(os.get("ID"));
+            version = os.get("VERSION_ID");
+            if (version == null) {
+                version = os.get("BUILD_ID");
+            }
+        }
+        if (id == null || version == null) {
+            /* Older Red Hat derivatives provide no os-release file */
+            for (String line : redhat.getLines()) {
+                int releaseIndex = line.indexOf(RELEASE);
+                int versionEnd = line.indexOf("(");
+                if (releaseIndex > 0 && versionEnd > releaseIndex) {
+                    id = PlatformDetailsTask.preferredLinuxOsName(line.substring(0, releaseIndex).trim());
+                    version = line.substring(releaseIndex + RELEASE.length(), versionEnd).trim();
+                }
+            }
+        }
+        if ("debian".equalsIgnoreCase(id) && version == null && !debian.getLines().isEmpty()) {
+            /* Debian testing and unstable omit the version, debian_version names them like "trixie/sid" */
+            version = debian.getLines().getFirst().trim();
+            if (version.contains("/")) {
+                version = version.substring(0, version.indexOf("/"));
+            }
+        }
+        this.distributorId = isBlank(id) ? PlatformDetailsTask.UNKNOWN_VALUE_STRING : id;
+        this.release = isBlank(version) ? PlatformDetailsTask.UNKNOWN_VALUE_STRING : version;
+    }
+
+    private static boolean isBlank(@CheckForNull String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Returns true if the release files identified both the distribution and its version.
+     *
+     * @return true if distributor ID and release are both known
+     */
+    boolean isComplete() {
+        return !distributorId.equals(PlatformDetailsTask.UNKNOWN_VALUE_STRING)
+                && !release.equals(PlatformDetailsTask.UNKNOWN_VALUE_STRING);
+    }
+
+    /**
+     * Return the Linux distributor ID for this agent.
+     *
+     * @return Linux distributor ID for this agent
+     */
+    @Override
+    @NonNull
+    public String distributorId() {
+        return distributorId;
+    }
+
+    /**
+     * Return the Linux release for this agent.
+     *
+     * @return Linux release for this agent
+     */
+    @Override
+    @NonNull
+    public String release() {
+        return release;
+    }
+}
@@ -1,11 +1,19 @@
 package org.jvnet.hudson.plugins.platformlabeler;
 
+import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.model.AbstractDescribableImpl;
 import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import jenkins.model.Jenkins;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
 
 /** Stores configuration about labels to generate. */
 public class LabelConfig extends AbstractDescribableImpl<LabelConfig> {
@@ -18,6 +26,14 @@ public class LabelConfig extends AbstractDescribableImpl<LabelConfig> {
     private boolean architectureName = true;
     private boolean nameVersion = true;
     private boolean architectureNameVersion = true;
+    private boolean cpu = false;
+    private boolean memory = false;
+    private boolean containerLimits = false;
+    private String cpuFeatures = "";
+    private String labelTemplates = "";
+
+    /** Compiled {@link #labelTemplates}, compiled on first use and shared by copies. */
+    private transient volatile List<LabelTemplate> compiledLabelTemplates;
 
     @DataBoundConstructor
     public LabelConfig() {
@@ -35,6 +51,12 @@ public class LabelConfig extends AbstractDescribableImpl<LabelConfig> {
             this.architectureName = srcLabelConfig.architectureName;
             this.nameVersion = srcLabelConfig.nameVersion;
             this.architectureNameVersion = srcLabelConfig.architectureNameVersion;
+            this.cpu = srcLabelConfig.cpu;
+            this.memory = srcLabelConfig.memory;
+            this.containerLimits = srcLabelConfig.containerLimits;
+            this.cpuFeatures = srcLabelConfig.cpuFeatures;
+            this.labelTemplates = srcLabelConfig.labelTemplates;
+            this.compiledLabelTemplates = srcLabelConfig.compiledLabelTemplates;
         }
     }
 
@@ -110,9 +132,183 @@ public class LabelConfig extends AbstractDescribableImpl<LabelConfig> {
         this.osName = osName;
     }
 
+    /**
+     * Returns true if a CPU tier label like "cpu-32" is generated from the number of logical
+     * processors, rounded down to a power of two.
+     *
+     * @return true if the CPU tier label is generated
+     */
+    public boolean isCpu() {
+        return cpu;
+    }
+
+    @DataBoundSetter
+    public void setCpu(boolean cpu) {
+        this.cpu = cpu;
+    }
+
+    /**
+     * Returns true if a memory tier label like "mem-64g" is generated from the total memory,
+     * rounded to a power of two gigabytes.
+     *
+     * @return true if the memory tier label is generated
+     */
+    public boolean isMemory() {
+        return memory;
+    }
+
+    @DataBoundSetter
+    public void setMemory(boolean memory) {
+        this.memory = memory;
+    }
+
+    /**
+     * Returns true if the container limit labels like "cpu-limit-4" and "mem-limit-8g" are
+     * generated from the control group CPU quota and memory limit of the agent.
+     *
+     * @return true if the container limit labels are generated
+     */
+    public boolean isContainerLimits() {
+        return containerLimits;
+    }
+
+    @DataBoundSetter
+    public void setContainerLimits(boolean containerLimits) {
+        this.containerLimits = containerLimits;
+    }
+
+    /**
+     * Returns the processor instruction set extensions that generate a label like "cpu-avx2" on
+     * the agents that support them, separated by spaces or commas.
+     *
+     * @return processor extensions, empty if none
+     */
+    public String getCpuFeatures() {
+        return cpuFeatures == null ? "" : cpuFeatures;
+    }
+
+    @DataBoundSetter
+    public void setCpuFeatures(String cpuFeatures) {
+        this.cpuFeatures = cpuFeatures == null ? "" : cpuFeatures.trim();
+    }
+
+    /**
+     * Returns the label templates, one per line, like <code>${arch}-${name}-${majorVersion}</code>.
+     *
+     * @return label templates, empty if none
+     */
+    public String getLabelTemplates() {
+        return labelTemplates == null ? "" : labelTemplates;
+    }
+
+    @DataBoundSetter
+    public void setLabelTemplates(String labelTemplates) {
+        this.labelTemplates = labelTemplates == null ? "" : labelTemplates.trim();
+        this.compiledLabelTemplates = null;
+    }
+
+    /**
+     * Returns the label templates compiled once for all the nodes that use this configuration.
+     *
+     * @return compiled label templates, invalid templates are skipped
+     */
+    @NonNull
+    List<LabelTemplate> getCompiledLabelTemplates() {
+        List<LabelTemplate> compiled = compiledLabelTemplates;
+        if (compiled == null) {
+            compiled = LabelTemplate.compileAll(labelTemplates);
+            compiledLabelTemplates = compiled;
+        }
+        return compiled;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        LabelConfig that = (LabelConfig) o;
+        return architecture == that.architecture
+                && name == that.name
+                && version == that.version
+                && windowsFeatureUpdate == that.windowsFeatureUpdate
+                && osName == that.osName
+                && architectureName == that.architectureName
+                && nameVersion == that.nameVersion
+                && architectureNameVersion == that.architectureNameVersion
+                && cpu == that.cpu
+                && memory == that.memory
+                && containerLimits == that.containerLimits
+                && getCpuFeatures().equals(that.getCpuFeatures())
+                && getLabelTemplates().equals(that.getLabelTemplates());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                architecture,
+                name,
+                version,
+                windowsFeatureUpdate,
+                osName,
+                architectureName,
+                nameVersion,
+                architectureNameVersion,
+                cpu,
+                memory,
+                containerLimits,
+                getCpuFeatures(),
+                getLabelTemplates());
+    }
+
     @Extension
     @Symbol("platformlabelerconfig")
     public static class DescriptorImpl extends Descriptor<LabelConfig> {
-        /* Intentionally empty constructor */
+
+        /**
+         * Checks that each line of the label templates is a valid template.
+         *
+         * @param value label templates entered by the user
+         * @return validation result
+         */
+        @POST
+        public FormValidation doCheckLabelTemplates(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            if (value == null) {
+                return FormValidation.ok();
+            }
+            for (String line : value.split("\\R")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    LabelTemplate.compile(line);
+                } catch (IllegalArgumentException e) {
+                    return FormValidation.error(e.getMessage());
+                }
+            }
+            return FormValidation.ok();
+        }
+
+        /**
+         * Warns about processor extensions that agents do not report.
+         *
+         * @param value processor extensions entered by the user
+         * @return validation result
+         */
+        @POST
+        public FormValidation doCheckCpuFeatures(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            for (String feature : CpuFeatures.parse(value)) {
+                if (!CpuFeatures.KNOWN_FEATURES.contains(feature)) {
+                    return FormValidation.warning("Agents do not report the processor extension '" + feature
+                            + "', use one of " + new TreeSet<>(CpuFeatures.KNOWN_FEATURES));
+                }
+            }
+            return FormValidation.ok();
+        }
     }
 }
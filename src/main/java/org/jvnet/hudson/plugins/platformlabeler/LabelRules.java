@@ -0,0 +1,128 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Rules that collapse platform details into fewer distinct labels. Every distinct label is a label
+ * atom retained by Jenkins and evaluated by label expressions, so a fleet with many point releases
+ * or architecture spellings benefits from reporting them as one label.
+ */
+final class LabelRules {
+
+    /** Rules that leave platform details and labels unchanged. */
+    static final LabelRules NONE = new LabelRules(false, false, false);
+
+    /** Architecture spellings and the architecture they are reported as. */
+    private static final Map<String, String> ARCHITECTURE_ALIASES = Map.of(
+            "x86_64", "amd64",
+            "x64", "amd64",
+            "arm64", "aarch64",
+            "i386", "x86",
+            "i486", "x86",
+            "i586", "x86",
+            "i686", "x86");
+
+    private final boolean majorVersionOnly;
+    private final boolean normalizeArchitecture;
+    private final boolean suppressPlaceholders;
+
+    /**
+     * Label rules constructor.
+     *
+     * @param majorVersionOnly report versions up to their first dot, like "12" for "12.7"
+     * @param normalizeArchitecture report architecture aliases as one architecture, like "amd64" for "x86_64"
+     * @param suppressPlaceholders omit labels of values that the probe could not determine
+     */
+    LabelRules(boolean majorVersionOnly, boolean normalizeArchitecture, boolean suppressPlaceholders) {
+        this.majorVersionOnly = majorVersionOnly;
+        this.normalizeArchitecture = normalizeArchitecture;
+        this.suppressPlaceholders = suppressPlaceholders;
+    }
+
+    /**
+     * Returns the platform details with the version and architecture rewritten by the rules.
+     *
+     * @param details platform details reported by the probe
+     * @return rewritten platform details, the same instance if no rule changes them
+     */
+    @NonNull
+    PlatformDetails apply(@NonNull PlatformDetails details) {
+        String architecture = normalizeArchitecture ? normalizeArchitecture(details.getArchitecture()) : null;
+        String version = majorVersionOnly ? majorVersion(details.getVersion()) : details.getVersion();
+        if (architecture == null && version.equals(details.getVersion())) {
+            return details;
+        }
+        return new PlatformDetails(
+                details.getName(),
+                architecture == null ? details.getArchitecture() : architecture,
+                version,
+                details.getWindowsFeatureUpdate(),
+                details.getOsName(),
+                details.getCpuCount(),
+                details.getMemoryBytes(),
+                details.getCpuLimit(),
+                details.getMemoryLimitBytes(),
+                details.getCpuFeatures());
+    }
+
+    /**
+     * Returns true if the label must be omitted.
+     *
+     * @param label label computed from platform details
+     * @return true if the label contains a value that the probe could not determine
+     */
+    boolean isSuppressed(@NonNull String label) {
+        return suppressPlaceholders
+                && (label.contains(PlatformDetailsTask.UNKNOWN_VALUE_STRING)
+                        || label.contains(PlatformDetailsTask.UNKNOWN_WINDOWS_VALUE_STRING));
+    }
+
+    /* Returns null if the architecture is not an alias */
+    @CheckForNull
+    private static String normalizeArchitecture(@NonNull String architecture) {
+        return ARCHITECTURE_ALIASES.get(architecture.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Returns the version up to its first dot, like "12" for "12.7".
+     *
+     * @param version version reported by the probe
+     * @return major version, or the version itself if it has no minor part or is a placeholder
+     */
+    @NonNull
+    static String majorVersion(@NonNull String version) {
+        int dot = version.indexOf('.');
+        if (dot <= 0 || version.startsWith(PlatformDetailsTask.UNKNOWN_VALUE_STRING)) {
+            return version;
+        }
+        return version.substring(0, dot);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LabelRules that)) {
+            return false;
+        }
+        return majorVersionOnly == that.majorVersionOnly
+                && normalizeArchitecture == that.normalizeArchitecture
+                && suppressPlaceholders == that.suppressPlaceholders;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(majorVersionOnly, normalizeArchitecture, suppressPlaceholders);
+    }
+
+    @Override
+    public String toString() {
+        return "LabelRules[majorVersionOnly=" + majorVersionOnly + ", normalizeArchitecture=" + normalizeArchitecture
+                + ", suppressPlaceholders=" + suppressPlaceholders + "]";
+    }
+}
@@ -0,0 +1,152 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Label shape like <code>${arch}-${name}-${majorVersion}</code>, compiled once into a list of
+ * literal and variable parts so that formatting a label for a node never parses the template.
+ */
+final class LabelTemplate {
+
+    private static final Logger LOGGER = Logger.getLogger(LabelTemplate.class.getName());
+
+    /* Whitespace in the values of variables, which would split the label */
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /** Template variables and the platform detail each one is read from. */
+    private static final Map<String, Function<PlatformDetails, String>> VARIABLES = Map.of(
+            "arch", PlatformDetails::getArchitecture,
+            "name", PlatformDetails::getName,
+            "version", PlatformDetails::getVersion,
+            "majorVersion", details -> LabelRules.majorVersion(details.getVersion()),
+            "osName", PlatformDetails::getOsName,
+            "windowsFeatureUpdate", PlatformDetails::getWindowsFeatureUpdate);
+
+    private final String template;
+    private final List<Function<PlatformDetails, String>> parts;
+
+    private LabelTemplate(@NonNull String template, @NonNull List<Function<PlatformDetails, String>> parts) {
+        this.template = template;
+        this.parts = List.copyOf(parts);
+    }
+
+    /**
+     * Returns the names of the variables that templates may use.
+     *
+     * @return variable names
+     */
+    @NonNull
+    static List<String> getVariableNames() {
+        return List.of("arch", "name", "version", "majorVersion", "osName", "windowsFeatureUpdate");
+    }
+
+    /**
+     * Compiles a template.
+     *
+     * @param template label template, like <code>${arch}-${name}-${majorVersion}</code>
+     * @return compiled template
+     * @throws IllegalArgumentException if the template is empty, has whitespace in its literal
+     *     text, refers to an unknown variable, or has an unterminated variable reference
+     */
+    @NonNull
+    static LabelTemplate compile(@NonNull String template) {
+        String trimmed = template.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Empty label template");
+        }
+        List<Function<PlatformDetails, String>> parts = new ArrayList<>();
+        int index = 0;
+        while (index < trimmed.length()) {
+            int start = trimmed.indexOf("${", index);
+            if (start < 0) {
+                parts.add(literal(trimmed.substring(index), trimmed));
+                break;
+            }
+            if (start > index) {
+                parts.add(literal(trimmed.substring(index, start), trimmed));
+            }
+            int end = trimmed.indexOf('}', start + 2);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated variable in label template '" + trimmed + "'");
+            }
+            String variable = trimmed.substring(start + 2, end).trim();
+            Function<PlatformDetails, String> part = VARIABLES.get(variable);
+            if (part == null) {
+                throw new IllegalArgumentException(
+                        "Unknown variable '" + variable + "' in label template '" + trimmed + "', use one of "
+                                + getVariableNames());
+            }
+            parts.add(part);
+            index = end + 1;
+        }
+        return new LabelTemplate(trimmed, parts);
+    }
+
+    /**
+     * Compiles the templates of a text with one template per line. Blank lines are ignored and
+     * invalid templates are logged and skipped.
+     *
+     * @param templates label templates, one per line
+     * @return compiled templates
+     */
+    @NonNull
+    static List<LabelTemplate> compileAll(@CheckForNull String templates) {
+        if (templates == null || templates.isBlank()) {
+            return List.of();
+        }
+        List<LabelTemplate> compiled = new ArrayList<>();
+        for (String line : templates.split("\\R")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                compiled.add(compile(line));
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.WARNING, "Ignoring invalid label template: {0}", e.getMessage());
+            }
+        }
+        return List.copyOf(compiled);
+    }
+
+    /**
+     * Formats the label of a node. Whitespace in the values of the variables, like in the
+     * <code>${osName}</code> "Windows Server 2022", is replaced by underscores.
+     *
+     * @param details platform details of the node
+     * @return label, or null if a variable of the template has no value for the node
+     */
+    @CheckForNull
+    String format(@NonNull PlatformDetails details) {
+        StringBuilder label = new StringBuilder();
+        for (Function<PlatformDetails, String> part : parts) {
+            String value = part.apply(details);
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            label.append(WHITESPACE.matcher(value.trim()).replaceAll("_"));
+        }
+        return label.toString();
+    }
+
+    @NonNull
+    private static Function<PlatformDetails, String> literal(@NonNull String text, @NonNull String template) {
+        /* Jenkins splits label expressions at whitespace, such a label could never be matched */
+        if (text.chars().anyMatch(Character::isWhitespace)) {
+            throw new IllegalArgumentException("Whitespace in label template '" + template + "'");
+        }
+        return details -> text;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
@@ -0,0 +1,35 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import java.io.Serial;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map bounded to a maximum size that removes its least recently used entry when full. Not thread
+ * safe, callers synchronize on the map.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSize;
+
+    /**
+     * Bounded map constructor.
+     *
+     * @param maxSize maximum number of entries retained by the map
+     */
+    LruMap(int maxSize) {
+        super(16, 0.75f, true);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxSize;
+    }
+}
@@ -54,12 +54,12 @@ public class LsbRelease implements PlatformDetailsRelease {
     public LsbRelease() {
         Map<String, String> newProps = new HashMap<>();
         try {
-            Process process = new ProcessBuilder("lsb_release", "-a").start();
-            try (InputStream stream = process.getInputStream()) {
-                readLsbReleaseOutput(stream, newProps);
-            }
+            readLsbReleaseOutput(CommandRunner.run("lsb_release", "-a").getOutput(), newProps);
         } catch (IOException e) {
             LOGGER.log(Level.FINEST, "lsb_release execution failed", e);
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.FINEST, "lsb_release execution interrupted", e);
+            Thread.currentThread().interrupt();
         }
         this.distributorId = newProps.getOrDefault("Distributor ID", PlatformDetailsTask.UNKNOWN_VALUE_STRING);
         String guessedRelease = newProps.getOrDefault("Release", PlatformDetailsTask.UNKNOWN_VALUE_STRING);
@@ -149,12 +149,13 @@ public class LsbRelease implements PlatformDetailsRelease {
     private String readAptCachePolicy(@NonNull String defaultValue) {
         String value = defaultValue;
         try {
-            Process process = new ProcessBuilder("apt-cache", "policy", "base-files").start();
-            try (InputStream stream = process.getInputStream()) {
-                value = readReleaseFromAptCachePolicyOutput(stream);
-            }
+            value = readReleaseFromAptCachePolicyOutput(
+                    CommandRunner.run("apt-cache", "policy", "base-files").getOutput());
         } catch (IOException e) {
             LOGGER.log(Level.FINEST, "apt-cache execution failed", e);
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.FINEST, "apt-cache execution interrupted", e);
+            Thread.currentThread().interrupt();
         }
         return value;
     }
@@ -24,40 +24,100 @@
 
 package org.jvnet.hudson.plugins.platformlabeler;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.model.Computer;
 import hudson.model.Node;
+import hudson.model.Queue;
 import hudson.model.TaskListener;
 import hudson.model.labels.LabelAtom;
 import hudson.remoting.Channel;
 import hudson.remoting.VirtualChannel;
 import hudson.slaves.ComputerListener;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.model.GlobalConfiguration;
 import jenkins.model.Jenkins;
+import jenkins.util.Timer;
 
 /** A cache of Node labels for the LabelFinder in our package. */
 @Extension
 public class NodeLabelCache extends ComputerListener {
 
-    /** The OS properties for nodes. */
-    private static transient Map<Computer, PlatformDetails> nodePlatformProperties =
-            Collections.synchronizedMap(new WeakHashMap<>());
-    /** The labels computed for nodes - accessible package wide. */
-    static transient Map<Node, Collection<LabelAtom>> nodeLabels = new WeakHashMap<>();
+    /** The OS properties for nodes, keyed by computer name. */
+    private static final transient ConcurrentMap<String, PlatformDetails> nodePlatformProperties =
+            new ConcurrentHashMap<>();
+    /** Node counts per platform field value of the nodes in {@link #nodePlatformProperties}. */
+    private static final transient PlatformAggregates aggregates = new PlatformAggregates();
+    /**
+     * The labels computed for nodes, keyed by node name - accessible package wide. Values are
+     * immutable so that label lookups never take a lock, even while labels are being refreshed.
+     */
+    static final transient ConcurrentMap<String, Collection<LabelAtom>> nodeLabels = new ConcurrentHashMap<>();
+    /** Names of the nodes carrying each platform label of {@link #nodeLabels}. */
+    private static final transient PlatformLabelIndex labelIndex = new PlatformLabelIndex();
+    /** Label sets shared by nodes with the same platform details and label configuration. */
+    private static final transient PlatformLabelSets labelSets =
+            new PlatformLabelSets(name -> Jenkins.get().getLabelAtom(name));
+    /** The inputs from which the labels of each node were last computed, keyed by node name. */
+    private static final transient ConcurrentMap<String, RefreshState> refreshStates = new ConcurrentHashMap<>();
+    /** Number of node label refreshes that computed labels. */
+    private static final transient AtomicLong refreshCount = new AtomicLong();
+    /** Number of node label refreshes skipped because their inputs were unchanged. */
+    private static final transient AtomicLong skippedRefreshCount = new AtomicLong();
     /** Logging of issues. */
     private static final transient Logger LOGGER = Logger.getLogger("org.jvnet.hudson.plugins.platformlabeler");
+    /** Bounded pool that probes agents in reconnect storm mode. */
+    private static final transient ProbeExecutor PROBE_EXECUTOR =
+            new ProbeExecutor(PlatformLabelerGlobalConfiguration.DEFAULT_PROBE_THREADS);
+    /** Platform labels of each node when it was last saved, keyed by node name. */
+    private static final transient ConcurrentMap<String, Collection<LabelAtom>> savedLabels =
+            new ConcurrentHashMap<>();
+    /** Number of node saves skipped because the platform labels were unchanged since the last save. */
+    private static final transient AtomicLong skippedSaveCount = new AtomicLong();
+    /** Names of the computers probed when they connected and not sampled by the node monitor since. */
+    private static final transient Set<String> connectSamples = ConcurrentHashMap.newKeySet();
+    /** Time in milliseconds when the platform details of each computer were obtained, keyed by computer name. */
+    private static final transient ConcurrentMap<String, Long> probeTimes = new ConcurrentHashMap<>();
+    /** The agent fingerprints from which the cached platform details were computed, keyed by computer name. */
+    private static final transient ConcurrentMap<String, PlatformFingerprint> fingerprints = new ConcurrentHashMap<>();
+    /**
+     * Channels of the computers whose asynchronous probe has not finished yet, keyed by computer name. A
+     * probe of an earlier connection only removes its own channel, not the probe of a reconnected agent.
+     */
+    private static final transient ConcurrentMap<String, Channel> pendingProbes = new ConcurrentHashMap<>();
+    /** Set while an eviction of cached nodes is scheduled, so that one eviction runs at a time. */
+    private static final transient AtomicBoolean evictionScheduled = new AtomicBoolean(false);
+    /** Number of nodes evicted from the cache because they no longer exist or exceeded the limit. */
+    private static final transient AtomicLong evictedCount = new AtomicLong();
+    /** Rough size in bytes of one map entry with its key, used to estimate the retained memory. */
+    private static final transient long ENTRY_BYTES = 96L;
+    /** Platform details learned per provisioning source to label new nodes before their first probe. */
+    private static final transient PlatformPredictor predictor = new PlatformPredictor();
+    /** Batches node saves and coalesces repeated saves of the same node. */
+    private final transient NodeSaveQueue saveQueue = new NodeSaveQueue(this::saveNodeLabel);
 
     /**
      * When a computer is about to come online, probe it for its platform labels.
@@ -74,13 +134,28 @@ public class NodeLabelCache extends ComputerListener {
     public final void preOnline(final Computer computer, Channel channel, FilePath root, final TaskListener listener)
             throws IOException, InterruptedException {
         try {
-            cacheAndRefreshModel(computer, channel);
-            saveNodeLabel(computer.getNode());
+            PlatformLabelerGlobalConfiguration config = getGlobalConfiguration();
+            if (config != null && config.isAsyncProbe()) {
+                probeAsynchronously(computer, channel, listener, config);
+            } else if (config != null && config.isReconnectStormMode()) {
+                /* Bounds the concurrent probes, the connecting thread still waits for its probe */
+                PROBE_EXECUTOR.call(
+                        () -> {
+                            cacheAndRefreshModel(computer, channel);
+                            return null;
+                        },
+                        config.getProbeThreads());
+                saveNode(computer, config.getSaveBatchWindowMillis());
+            } else {
+                cacheAndRefreshModel(computer, channel);
+                saveNode(computer, config == null ? 0L : config.getSaveBatchWindowMillis());
+            }
         } catch (Exception e) {
             String name = "unnamed agent"; // built-in (and others) may not have a name during preOnline
             if (computer != null && !computer.getName().isEmpty()) {
                 name = computer.getName();
             }
+            LOGGER.log(Level.FINE, "Platform detail collection failed for '%s' during preOnline".formatted(name), e);
 
             listener.getLogger()
                     .println("Ignored platform detail collection failure for '" + name + "' during preOnline phase. "
@@ -88,6 +163,97 @@ public class NodeLabelCache extends ComputerListener {
         }
     }
 
+    /**
+     * Probe the computer on the probe pool and wait at most the configured time for the probe. If
+     * the probe takes longer, the computer comes online without platform labels and the labels are
+     * added when the probe finishes.
+     *
+     * @param computer agent to be probed
+     * @param channel channel to the agent
+     * @param listener logging destination for agent that is connecting
+     * @param config global configuration
+     * @throws InterruptedException on thread interrupt
+     */
+    private void probeAsynchronously(
+            final Computer computer,
+            final Channel channel,
+            final TaskListener listener,
+            final PlatformLabelerGlobalConfiguration config)
+            throws InterruptedException {
+        String name = computer.getName();
+        long saveWindowMillis = config.getSaveBatchWindowMillis();
+        pendingProbes.put(name, channel);
+        Future<Void> probe = PROBE_EXECUTOR.submit(
+                () -> {
+                    try {
+                        cacheAndRefreshModel(computer, channel);
+                        saveNode(computer, saveWindowMillis);
+                        /* Builds waiting for a platform label may now be assigned to this agent */
+                        Queue.getInstance().scheduleMaintenance();
+                    } catch (Exception e) {
+                        LOGGER.log(
+                                Level.FINE,
+                                "Platform detail collection failed for '%s' during asynchronous probe".formatted(name),
+                                e);
+                        listener.getLogger()
+                                .println("Ignored platform detail collection failure for '" + name
+                                        + "' during asynchronous probe. " + e);
+                    } finally {
+                        pendingProbes.remove(name, channel);
+                    }
+                    return null;
+                },
+                config.getProbeThreads());
+        long maxWaitMillis = config.getMaxProbeWaitMillis();
+        if (maxWaitMillis <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            probe.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+            ProbeMetrics.PROBE_WAIT.record(System.nanoTime() - start);
+        } catch (TimeoutException e) {
+            ProbeMetrics.PROBE_WAIT.recordTimeout();
+            LOGGER.log(Level.FINEST, "Agent ''{0}'' comes online before its platform probe finished", name);
+        } catch (ExecutionException e) {
+            /* The probe reports its own failures */
+            LOGGER.log(Level.FINEST, "Platform probe of ''%s'' failed".formatted(name), e);
+        }
+    }
+
+    /**
+     * Save the node of the computer within the batch window unless its platform labels are the
+     * same as when it was last saved.
+     *
+     * @param computer computer whose node is saved
+     * @param saveWindowMillis batch window in milliseconds, zero or less saves immediately
+     */
+    final void saveNode(final Computer computer, final long saveWindowMillis) {
+        Node node = computer.getNode();
+        if (node == null) {
+            saveNodeLabel(null);
+            return;
+        }
+        String nodeName = node.getNodeName();
+        Collection<LabelAtom> labels = nodeLabels.get(nodeName);
+        if (labels != null && labels.equals(savedLabels.get(nodeName))) {
+            skippedSaveCount.incrementAndGet();
+            LOGGER.log(Level.FINEST, "Platform labels of ''{0}'' unchanged since last save", nodeName);
+            return;
+        }
+        saveQueue.save(node, saveWindowMillis);
+    }
+
+    /**
+     * Returns true if an asynchronous probe of the computer has not finished yet.
+     *
+     * @param computerName name of the computer
+     * @return true if the computer is being probed asynchronously
+     */
+    static boolean isProbePending(final String computerName) {
+        return pendingProbes.containsKey(computerName);
+    }
+
     /**
      * When a computer is online, probe it for its platform labels.
      * Typically for built-in agents that are online all the time (like built-in node) ensuring they also get their labels updated.
@@ -100,8 +266,8 @@ public class NodeLabelCache extends ComputerListener {
     @Override
     public final void onOnline(final Computer computer, final TaskListener ignored)
             throws IOException, InterruptedException {
-        // Do not query again if labels were populated during the preOnline phase
-        if (nodePlatformProperties.get(computer) == null) {
+        // Do not query again if labels were populated or are being populated during the preOnline phase
+        if (nodePlatformProperties.get(computer.getName()) == null && !isProbePending(computer.getName())) {
             cacheAndRefreshModel(computer, computer.getChannel());
         }
     }
@@ -116,11 +282,66 @@ public class NodeLabelCache extends ComputerListener {
     @Override
     public final void onConfigurationChange() {
         LOGGER.log(Level.FINEST, "onConfigurationChange() called to refresh platform labels");
-        synchronized (nodePlatformProperties) {
-            nodePlatformProperties.forEach((node, labels) -> {
-                refreshModel(node);
-            });
+        long start = System.nanoTime();
+        long refreshedBefore = refreshCount.get();
+        long skippedBefore = skippedRefreshCount.get();
+        for (Computer computer : Jenkins.get().getComputers()) {
+            if (nodePlatformProperties.containsKey(computer.getName())) {
+                refreshModel(computer);
+            }
         }
+        LOGGER.log(
+                Level.FINEST,
+                "onConfigurationChange() refreshed labels of {0} nodes and skipped {1} unchanged nodes",
+                new Object[] {refreshCount.get() - refreshedBefore, skippedRefreshCount.get() - skippedBefore});
+        ProbeMetrics.CONFIGURATION_CHANGE.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the number of node label refreshes that computed labels.
+     *
+     * @return number of node label refreshes that computed labels
+     */
+    static long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * Returns the number of node label refreshes skipped because neither the platform details nor
+     * the label configuration of the node had changed.
+     *
+     * @return number of skipped node label refreshes
+     */
+    static long getSkippedRefreshCount() {
+        return skippedRefreshCount.get();
+    }
+
+    /**
+     * Returns the number of node saves skipped because the platform labels of the node were the
+     * same as when it was last saved.
+     *
+     * @return number of skipped node saves
+     */
+    static long getSkippedSaveCount() {
+        return skippedSaveCount.get();
+    }
+
+    /**
+     * Forget the platform details and labels of a node that no longer exists.
+     *
+     * @param nodeName name of the node to forget
+     */
+    static void forget(final String nodeName) {
+        putPlatformDetails(nodeName, null);
+        probeTimes.remove(nodeName);
+        putNodeLabels(nodeName, null);
+        refreshStates.remove(nodeName);
+        savedLabels.remove(nodeName);
+        connectSamples.remove(nodeName);
+        fingerprints.remove(nodeName);
+        PlatformDetailsStore.get().remove(nodeName);
+        predictor.withdraw(nodeName);
+        ProbeMetrics.forget(nodeName);
     }
 
     /**
@@ -133,7 +354,483 @@ public class NodeLabelCache extends ComputerListener {
     final void cacheLabels(final Computer computer, final VirtualChannel channel)
             throws IOException, InterruptedException {
         /* Cache the labels for the node */
-        nodePlatformProperties.put(computer, requestComputerPlatformDetails(computer, channel));
+        PlatformDetails details;
+        try {
+            details = requestStoredPlatformDetails(computer, channel);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            withdrawPrediction(computer);
+            throw e;
+        }
+        learnPrediction(computer, details);
+        putPlatformDetails(computer.getName(), details);
+        probeTimes.put(computer.getName(), System.currentTimeMillis());
+        connectSamples.add(computer.getName());
+        scheduleEviction();
+    }
+
+    /**
+     * Label a new node with the platform labels last reported by a node of the same provisioning
+     * source, if predictive labels are enabled and the node has no platform labels yet. The
+     * prediction is replaced when the node is probed.
+     *
+     * @param node node that was created
+     */
+    final void predictLabels(final Node node) {
+        PlatformLabelerGlobalConfiguration config = getGlobalConfiguration();
+        String nodeName = node.getNodeName();
+        if (config == null || !config.isPredictLabels() || nodeLabels.containsKey(nodeName)) {
+            return;
+        }
+        String source = PlatformPredictor.sourceOf(node, config.getCompiledPredictionPattern());
+        PlatformDetails predicted = predictor.predict(nodeName, source);
+        if (predicted == null) {
+            return;
+        }
+        LOGGER.log(Level.FINE, "Predicted platform details {0} for ''{1}'' from source ''{2}''", new Object[] {
+            predicted, nodeName, source
+        });
+        putNodeLabels(nodeName, getLabelsForDetails(predicted, getLabelConfig(node)));
+        node.getAssignedLabels();
+    }
+
+    /**
+     * Learn the probed platform details for the provisioning source of the computer and score the
+     * prediction made for it.
+     *
+     * @param computer computer that was probed
+     * @param details probed platform details
+     */
+    private void learnPrediction(final Computer computer, final PlatformDetails details) {
+        Node node = computer.getNode();
+        PlatformLabelerGlobalConfiguration config = getGlobalConfiguration();
+        String source = null;
+        if (node != null && config != null && config.isPredictLabels()) {
+            source = PlatformPredictor.sourceOf(node, config.getCompiledPredictionPattern());
+        }
+        predictor.learn(computer.getName(), source, details);
+    }
+
+    /**
+     * Remove the predicted labels of a computer whose probe failed, so that the node does not
+     * keep labels that no probe has confirmed.
+     *
+     * @param computer computer whose probe failed
+     */
+    private void withdrawPrediction(final Computer computer) {
+        String name = computer.getName();
+        if (predictor.withdraw(name) && !refreshStates.containsKey(name)) {
+            putNodeLabels(name, null);
+            Node node = computer.getNode();
+            if (node != null) {
+                node.getAssignedLabels();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nodes labeled with predicted platform details.
+     *
+     * @return number of predictions
+     */
+    static long getPredictionCount() {
+        return predictor.getPredictionCount();
+    }
+
+    /**
+     * Returns the number of predictions that matched the platform details probed later.
+     *
+     * @return number of correct predictions
+     */
+    static long getCorrectPredictionCount() {
+        return predictor.getCorrectCount();
+    }
+
+    /**
+     * Returns the number of predictions that differed from the platform details probed later.
+     *
+     * @return number of wrong predictions
+     */
+    static long getWrongPredictionCount() {
+        return predictor.getWrongCount();
+    }
+
+    /** Evict cached nodes on a background thread if there are more than the configured maximum. */
+    private void scheduleEviction() {
+        PlatformLabelerGlobalConfiguration config = getGlobalConfiguration();
+        int maxCachedNodes = config == null ? 0 : config.getMaxCachedNodes();
+        if (maxCachedNodes <= 0 || nodePlatformProperties.size() <= maxCachedNodes) {
+            return;
+        }
+        if (evictionScheduled.compareAndSet(false, true)) {
+            Timer.get().submit(() -> {
+                try {
+                    evict(maxCachedNodes);
+                } finally {
+                    evictionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Forget the nodes that no longer exist, then the least recently probed offline nodes until at
+     * most maxCachedNodes nodes are cached. Online and connecting nodes are never evicted.
+     *
+     * @param maxCachedNodes maximum number of cached nodes, 0 or less for no limit
+     * @return number of evicted nodes
+     */
+    static int evict(final int maxCachedNodes) {
+        Jenkins jenkins = Jenkins.get();
+        Set<String> names = new HashSet<>(nodePlatformProperties.keySet());
+        names.addAll(nodeLabels.keySet());
+        int evicted = 0;
+        for (String name : names) {
+            if (getNode(jenkins, name) == null) {
+                forget(name);
+                evicted++;
+            }
+        }
+        if (maxCachedNodes > 0 && nodePlatformProperties.size() > maxCachedNodes) {
+            List<String> offline = new ArrayList<>();
+            for (String name : nodePlatformProperties.keySet()) {
+                Node node = getNode(jenkins, name);
+                Computer computer = node == null ? null : node.toComputer();
+                if (computer == null
+                        || (computer.isOffline() && !computer.isConnecting() && !isProbePending(name))) {
+                    offline.add(name);
+                }
+            }
+            offline.sort(Comparator.comparingLong(NodeLabelCache::getProbeTime));
+            for (String name : offline) {
+                if (nodePlatformProperties.size() <= maxCachedNodes) {
+                    break;
+                }
+                forget(name);
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            evictedCount.addAndGet(evicted);
+            LOGGER.log(Level.FINE, "Evicted {0} nodes from the platform label cache", evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * Returns the node with the given name. Unlike {@link Jenkins#getComputer(String)}, which scans
+     * all computers, the lookup is by name, so visiting every cached node stays linear.
+     *
+     * @param jenkins running Jenkins controller
+     * @param name name of the node, empty for the built-in node
+     * @return node or null if no node has that name
+     */
+    @CheckForNull
+    static Node getNode(final Jenkins jenkins, final String name) {
+        return name.isEmpty() ? jenkins : jenkins.getNode(name);
+    }
+
+    /**
+     * Returns the number of nodes evicted from the cache.
+     *
+     * @return number of evicted nodes
+     */
+    static long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * Returns the number of entries of each cache kept by this class.
+     *
+     * @return entry counts keyed by cache name
+     */
+    @NonNull
+    static Map<String, Integer> getCacheSizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        sizes.put("platformDetails", nodePlatformProperties.size());
+        sizes.put("nodeLabels", nodeLabels.size());
+        sizes.put("labelSets", labelSets.size());
+        sizes.put("refreshStates", refreshStates.size());
+        sizes.put("savedLabels", savedLabels.size());
+        sizes.put("probeTimes", probeTimes.size());
+        sizes.put("fingerprints", fingerprints.size());
+        sizes.put("storedDetails", PlatformDetailsStore.get().size());
+        sizes.put("connectSamples", connectSamples.size());
+        sizes.put("predictionSources", predictor.getSourceCount());
+        sizes.put("pendingPredictions", predictor.getPendingCount());
+        return sizes;
+    }
+
+    /**
+     * Returns a rough estimate of the memory retained by the caches of this class and the
+     * persistent platform details store. Counts a fixed size per map entry plus the strings of the
+     * cached and stored platform details, the stored fingerprints and the label sets, but not the
+     * label atoms, which belong to Jenkins.
+     *
+     * @return estimated retained memory in bytes
+     */
+    static long estimateRetainedBytes() {
+        long bytes = 0L;
+        for (int size : getCacheSizes().values()) {
+            bytes += size * ENTRY_BYTES;
+        }
+        for (PlatformDetails details : nodePlatformProperties.values()) {
+            bytes += estimateBytes(details);
+        }
+        /* Stored details are copies loaded from disk, not the cached instances */
+        for (PlatformDetailsStore.Entry entry : PlatformDetailsStore.get().getEntries()) {
+            bytes += estimateBytes(entry.getDetails()) + estimateBytes(entry.getFingerprint());
+        }
+        /* Label sets are shared by the nodes of one platform, count their references once */
+        bytes += labelSets.size() * 8L * ENTRY_BYTES;
+        return bytes;
+    }
+
+    private static long estimateBytes(final PlatformDetails details) {
+        long bytes = ENTRY_BYTES;
+        for (String value : Arrays.asList(
+                details.getName(),
+                details.getArchitecture(),
+                details.getVersion(),
+                details.getArchitectureName(),
+                details.getArchitectureNameVersion(),
+                details.getNameVersion(),
+                details.getOsName(),
+                details.getWindowsFeatureUpdate())) {
+            /* Object header, fields and array header of a Latin-1 string */
+            bytes += value == null ? 0L : 40L + value.length();
+        }
+        return bytes;
+    }
+
+    private static long estimateBytes(final PlatformFingerprint fingerprint) {
+        long bytes = ENTRY_BYTES;
+        for (Map.Entry<String, String> component : fingerprint.getComponents().entrySet()) {
+            bytes += ENTRY_BYTES + 80L + component.getKey().length() + component.getValue().length();
+        }
+        return bytes;
+    }
+
+    /**
+     * Apply platform details reported by the node monitor. Labels are refreshed and the node is
+     * saved only if the details differ from the cached details.
+     *
+     * @param computer computer that was monitored
+     * @param details platform details reported by the monitor, or null if none were reported
+     */
+    final void updatePlatformDetails(final Computer computer, @CheckForNull final PlatformDetails details) {
+        if (computer == null || details == null) {
+            return;
+        }
+        PlatformDetails previous = putPlatformDetails(computer.getName(), details);
+        probeTimes.put(computer.getName(), System.currentTimeMillis());
+        if (details.hasSameLabels(previous)) {
+            return;
+        }
+        LOGGER.log(Level.FINE, "Platform details of ''{0}'' changed from {1} to {2}", new Object[] {
+            computer.getName(), previous, details
+        });
+        refreshModel(computer);
+        PlatformLabelerGlobalConfiguration config = getGlobalConfiguration();
+        saveNode(computer, config == null ? 0L : config.getSaveBatchWindowMillis());
+    }
+
+    /**
+     * Records the platform details that the node monitor obtained by a probe of the computer, with
+     * the agent fingerprint so that later monitor cycles only probe again if it changes.
+     *
+     * @param computer computer that was probed
+     * @param probe fingerprint and platform details reported by the probe
+     */
+    final void updateProbedPlatformDetails(final Computer computer, @CheckForNull final PlatformProbe probe) {
+        if (computer == null || probe == null || probe.getDetails() == null) {
+            return;
+        }
+        PlatformDetails details = probe.getDetails();
+        updatePlatformDetails(computer, details);
+        fingerprints.put(computer.getName(), probe.getFingerprint());
+        PlatformDetailsStore.get().put(computer.getName(), probe.getFingerprint(), details);
+    }
+
+    /**
+     * Returns the fingerprint the computer had when its cached platform details were computed.
+     *
+     * @param computerName name of the computer
+     * @return fingerprint or null if it is not known
+     */
+    @CheckForNull
+    static PlatformFingerprint getCachedFingerprint(final String computerName) {
+        return fingerprints.get(computerName);
+    }
+
+    /**
+     * Returns a read-only view of the cached platform details of all computers. Never contacts an
+     * agent.
+     *
+     * @return cached platform details keyed by computer name
+     */
+    @NonNull
+    static Map<String, PlatformDetails> getAllCachedPlatformDetails() {
+        return Collections.unmodifiableMap(nodePlatformProperties);
+    }
+
+    /**
+     * Returns the time when the platform details of the computer were obtained.
+     *
+     * @param computerName name of the computer
+     * @return time in milliseconds since the epoch, or 0 if unknown
+     */
+    static long getProbeTime(final String computerName) {
+        return probeTimes.getOrDefault(computerName, 0L);
+    }
+
+    /* Package protected for tests and benchmarks that have no agent to probe */
+    static void cachePlatformDetails(final String computerName, final PlatformDetails details) {
+        putPlatformDetails(computerName, details);
+    }
+
+    /**
+     * Caches or removes the platform details of a computer and updates the platform aggregates.
+     *
+     * @param computerName name of the computer
+     * @param details platform details, or null to remove them
+     * @return previously cached platform details or null
+     */
+    @CheckForNull
+    private static PlatformDetails putPlatformDetails(
+            final String computerName, @CheckForNull final PlatformDetails details) {
+        PlatformDetails[] previous = new PlatformDetails[1];
+        /* Atomic per computer, so concurrent updates of one computer cannot count it twice */
+        nodePlatformProperties.compute(computerName, (name, cached) -> {
+            previous[0] = cached;
+            aggregates.replace(cached, details);
+            return details;
+        });
+        return previous[0];
+    }
+
+    /**
+     * Sets or removes the platform labels of a node and updates the label index.
+     *
+     * @param nodeName name of the node
+     * @param labels platform labels of the node, or null to remove them
+     */
+    private static void putNodeLabels(final String nodeName, @CheckForNull final Collection<LabelAtom> labels) {
+        /* Atomic per node, so concurrent refreshes of one node leave the index consistent */
+        nodeLabels.compute(nodeName, (name, previous) -> {
+            labelIndex.replace(nodeName, previous, labels);
+            return labels;
+        });
+    }
+
+    /**
+     * Returns the names of the nodes that carry a platform label. Answered from an index that is
+     * updated with the platform labels, without visiting the labels of every node.
+     *
+     * @param labelName name of the platform label, like "aarch64-Rocky-9.5"
+     * @return sorted names of the nodes with the label, empty if no node has it
+     */
+    @NonNull
+    public static Set<String> getNodesWithPlatformLabel(final String labelName) {
+        return labelIndex.getNodes(labelName);
+    }
+
+    /**
+     * Returns the number of nodes that carry a platform label.
+     *
+     * @param labelName name of the platform label
+     * @return number of nodes with the label
+     */
+    public static int countNodesWithPlatformLabel(final String labelName) {
+        return labelIndex.count(labelName);
+    }
+
+    /**
+     * Returns the number of nodes of every platform label.
+     *
+     * @return node counts keyed by label name
+     */
+    @NonNull
+    static Map<String, Integer> getPlatformLabelCounts() {
+        return labelIndex.counts();
+    }
+
+    /**
+     * Returns the number of nodes per platform field value.
+     *
+     * @return node counts keyed by field, then by field value
+     */
+    @NonNull
+    static Map<String, Map<String, Long>> getPlatformCounts() {
+        return aggregates.snapshot();
+    }
+
+    /**
+     * Returns the number of nodes whose platform field has the value.
+     *
+     * @param field name of a counted field, like "architectureNameVersion"
+     * @param value value of the field, like "aarch64-Rocky-9.5"
+     * @return number of nodes
+     */
+    static long getPlatformCount(final String field, final String value) {
+        return aggregates.count(field, value);
+    }
+
+    /**
+     * Returns the cached platform details of the computer.
+     *
+     * @param computerName name of the computer
+     * @return cached platform details or null if the computer has not been probed
+     */
+    @CheckForNull
+    static PlatformDetails getCachedPlatformDetails(final String computerName) {
+        return nodePlatformProperties.get(computerName);
+    }
+
+    /**
+     * Returns true once after each probe of the computer when it connected, so that the node
+     * monitor can use the connect-time details as its next sample instead of probing again.
+     *
+     * @param computerName name of the computer
+     * @return true if the connect-time details have not been used as a monitor sample yet
+     */
+    static boolean takeConnectSample(final String computerName) {
+        return connectSamples.remove(computerName);
+    }
+
+    /**
+     * Return PlatformDetails of the computer from the persistent store if the agent fingerprint is
+     * unchanged since they were stored, otherwise probe the agent and store the result. The agent
+     * is called once in both cases.
+     *
+     * @param computer agent whose platform details are returned
+     * @param channel channel to the agent
+     * @return PlatformDetails for computer
+     * @throws IOException on I/O error
+     * @throws InterruptedException on thread interruption
+     */
+    @NonNull
+    PlatformDetails requestStoredPlatformDetails(final Computer computer, final VirtualChannel channel)
+            throws IOException, InterruptedException {
+        if (computer == null || channel == null) {
+            return requestComputerPlatformDetails(computer, channel);
+        }
+        String name = computer.getName();
+        PlatformDetailsStore store = PlatformDetailsStore.get();
+        PlatformProbe probe = requestComputerPlatformProbe(computer, channel, store.getFingerprint(name));
+        PlatformFingerprint fingerprint = probe.getFingerprint();
+        fingerprints.put(name, fingerprint);
+        PlatformDetails details = probe.getDetails();
+        if (details == null) {
+            details = store.lookup(name, fingerprint);
+            if (details != null) {
+                LOGGER.log(Level.FINEST, "Using stored platform details for ''{0}''", name);
+                return details;
+            }
+            /* The stored details were removed while the agent was called */
+            details = requestComputerPlatformDetails(computer, channel);
+        }
+        store.put(name, fingerprint, details);
+        return details;
     }
 
     private void logUpdateNodeException(Node node, IOException e) {
@@ -150,7 +847,9 @@ public class NodeLabelCache extends ComputerListener {
                                 Arrays.toString(assignedLabels.toArray())));
     }
     /**
-     * Update Jenkins' model so that labels for this computer are up to date.
+     * Update Jenkins' model so that labels for this computer are up to date. Nothing is computed
+     * when the platform details and the label configuration of the node are the same as in the
+     * previous refresh.
      *
      * @param computer node whose labels will be cached
      */
@@ -158,9 +857,22 @@ public class NodeLabelCache extends ComputerListener {
         if (computer != null) {
             Node node = computer.getNode();
             if (node != null) {
-                Collection<LabelAtom> labels = getLabelsForNode(node);
-                nodeLabels.put(node, labels);
+                long start = System.nanoTime();
+                String nodeName = node.getNodeName();
+                PlatformDetails details = getPlatformDetails(node);
+                LabelConfig labelConfig = getLabelConfig(node);
+                LabelRules rules = getLabelRules();
+                RefreshState previous = refreshStates.get(nodeName);
+                if (previous != null && previous.isCurrent(labelConfig, rules, details, nodeLabels.get(nodeName))) {
+                    skippedRefreshCount.incrementAndGet();
+                    return;
+                }
+                Collection<LabelAtom> labels = getLabelsForDetails(details, labelConfig, rules);
+                putNodeLabels(nodeName, labels);
+                refreshStates.put(nodeName, new RefreshState(labelConfig, rules, details, labels));
+                refreshCount.incrementAndGet();
                 node.getAssignedLabels();
+                ProbeMetrics.REFRESH_MODEL.record(System.nanoTime() - start);
             }
         }
     }
@@ -179,14 +891,24 @@ public class NodeLabelCache extends ComputerListener {
             return;
         }
         Set<LabelAtom> assignedLabels = node.getAssignedLabels();
+        long start = System.nanoTime();
         try {
             // Save the node to ensure label will see the node updated when platform details are added (or
             // updated).
             // This will ensure a node has the same state if we were adding labels via the UI.
             // See JENKINS-72224
             boolean result = Jenkins.get().updateNode(node);
+            ProbeMetrics.UPDATE_NODE.record(System.nanoTime() - start);
+            if (!result) {
+                ProbeMetrics.UPDATE_NODE.recordFailure();
+            }
             logUpdateNodeResult(result, node, assignedLabels);
+            Collection<LabelAtom> labels = nodeLabels.get(node.getNodeName());
+            if (result && labels != null) {
+                savedLabels.put(node.getNodeName(), labels);
+            }
         } catch (IOException e) {
+            ProbeMetrics.UPDATE_NODE.recordFailure();
             logUpdateNodeException(node, e);
         }
     }
@@ -202,6 +924,28 @@ public class NodeLabelCache extends ComputerListener {
     @NonNull
     PlatformDetails requestComputerPlatformDetails(final Computer computer, final VirtualChannel channel)
             throws IOException, InterruptedException {
+        PlatformDetails details = requestComputerPlatformProbe(computer, channel, null).getDetails();
+        if (details == null) {
+            throw new IOException("No platform details reported by the agent");
+        }
+        return details;
+    }
+
+    /**
+     * Return the fingerprint of the computer with its platform details, which are null if the
+     * fingerprint matches the expected one.
+     *
+     * @param computer agent that is probed
+     * @param channel channel to the agent
+     * @param expected fingerprint known to the controller, or null to always compute the details
+     * @return fingerprint and platform details of the computer
+     * @throws IOException on I/O error
+     * @throws InterruptedException on thread interruption
+     */
+    @NonNull
+    private PlatformProbe requestComputerPlatformProbe(
+            final Computer computer, final VirtualChannel channel, @CheckForNull final PlatformFingerprint expected)
+            throws IOException, InterruptedException {
         if (computer == null || channel == null) {
             // Cannot obtain details from an unconnected node. While we should
             // never ask for such details, its possible that we may attempt to
@@ -209,9 +953,15 @@ public class NodeLabelCache extends ComputerListener {
             throw new IOException("No virtual channel available");
         }
 
+        PlatformLabelerGlobalConfiguration config = getGlobalConfiguration();
+        boolean fastProbe = config != null && config.isFastProbe();
+        long start = System.nanoTime();
         try {
-            return channel.call(new PlatformDetailsTask());
+            PlatformProbe probe = channel.call(new ChangedPlatformDetailsTask(expected, fastProbe));
+            ProbeMetrics.recordProbe(computer.getName(), System.nanoTime() - start, probe);
+            return probe;
         } catch (IOException e) {
+            ProbeMetrics.PROBE.recordFailure();
             LOGGER.log(Level.SEVERE, "Failed to read labels", e);
             throw e;
         }
@@ -224,58 +974,90 @@ public class NodeLabelCache extends ComputerListener {
      * @return Collection with labels
      */
     Collection<LabelAtom> getLabelsForNode(final Node node) {
-
-        Set<LabelAtom> result = new HashSet<>();
-
         Computer computer = node.toComputer();
 
         if (computer == null) {
-            return result;
+            return Set.of();
         }
 
-        PlatformDetails pp = nodePlatformProperties.get(computer);
+        return getLabelsForDetails(getPlatformDetails(node), getLabelConfig(node));
+    }
 
-        LabelConfig labelConfig = getLabelConfig(node);
+    /**
+     * Return the cached platform details of the given node.
+     *
+     * @param node Node whose platform details should be returned
+     * @return platform details of the node or null if the node has not been probed
+     */
+    @CheckForNull
+    private PlatformDetails getPlatformDetails(final Node node) {
+        Computer computer = node.toComputer();
+        return computer == null ? null : nodePlatformProperties.get(computer.getName());
+    }
 
-        final Jenkins jenkins = Jenkins.get();
+    /**
+     * Return collection of labels generated from platform details with a label configuration.
+     *
+     * @param pp platform details of a node, or null if the node has not been probed
+     * @param labelConfig label configuration of the node
+     * @return Collection with labels
+     */
+    Collection<LabelAtom> getLabelsForDetails(@CheckForNull final PlatformDetails pp, final LabelConfig labelConfig) {
+        return getLabelsForDetails(pp, labelConfig, getLabelRules());
+    }
 
+    /**
+     * Return collection of labels generated from platform details with a label configuration,
+     * collapsed by the label rules.
+     *
+     * @param pp platform details of a node, or null if the node has not been probed
+     * @param labelConfig label configuration of the node
+     * @param rules label rules of the controller
+     * @return Collection with labels
+     */
+    private Collection<LabelAtom> getLabelsForDetails(
+            @CheckForNull final PlatformDetails pp, final LabelConfig labelConfig, final LabelRules rules) {
         if (pp == null) {
-            return result;
-        }
-
-        if (labelConfig.isArchitecture()) {
-            result.add(jenkins.getLabelAtom(pp.getArchitecture()));
-        }
-
-        if (labelConfig.isName()) {
-            result.add(jenkins.getLabelAtom(pp.getName()));
-        }
-
-        if (labelConfig.isVersion()) {
-            result.add(jenkins.getLabelAtom(pp.getVersion()));
-        }
-
-        if (labelConfig.isNameVersion()) {
-            result.add(jenkins.getLabelAtom(pp.getNameVersion()));
-        }
-
-        if (labelConfig.isArchitectureName()) {
-            result.add(jenkins.getLabelAtom(pp.getArchitectureName()));
-        }
-
-        if (labelConfig.isArchitectureNameVersion()) {
-            result.add(jenkins.getLabelAtom(pp.getArchitectureNameVersion()));
-        }
-
-        if (labelConfig.isWindowsFeatureUpdate() && pp.getWindowsFeatureUpdate() != null) {
-            result.add(jenkins.getLabelAtom(pp.getWindowsFeatureUpdate()));
+            return Set.of();
         }
+        return labelSets.get(pp, labelConfig, rules);
+    }
 
-        if (labelConfig.isOsName() && pp.getOsName() != null) {
-            result.add(jenkins.getLabelAtom(pp.getOsName()));
+    /**
+     * Returns the number of distinct platform labels of the cached nodes without the label rules
+     * and with the current label rules. The labels with rules are read from the shared label sets
+     * and the label names without rules are computed once per distinct platform and label
+     * configuration, without creating label atoms.
+     *
+     * @return distinct label counts keyed by "withoutRules" and "withRules"
+     */
+    @NonNull
+    final Map<String, Integer> getLabelCardinality() {
+        Jenkins jenkins = Jenkins.get();
+        LabelRules rules = getLabelRules();
+        Set<String> withoutRules = new HashSet<>();
+        Set<String> withRules = new HashSet<>();
+        Set<List<Object>> countedPlatforms = new HashSet<>();
+        Set<Collection<LabelAtom>> countedLabelSets = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<String, PlatformDetails> entry : nodePlatformProperties.entrySet()) {
+            Node node = getNode(jenkins, entry.getKey());
+            if (node == null) {
+                continue;
+            }
+            PlatformDetails details = entry.getValue();
+            LabelConfig labelConfig = getLabelConfig(node);
+            if (countedPlatforms.add(List.of(details, labelConfig))) {
+                withoutRules.addAll(PlatformLabelSets.labelNames(details, labelConfig, LabelRules.NONE));
+            }
+            Collection<LabelAtom> labels = getLabelsForDetails(details, labelConfig, rules);
+            if (countedLabelSets.add(labels)) {
+                labels.forEach(label -> withRules.add(label.getName()));
+            }
         }
-
-        return result;
+        Map<String, Integer> cardinality = new LinkedHashMap<>();
+        cardinality.put("withoutRules", withoutRules.size());
+        cardinality.put("withRules", withRules.size());
+        return cardinality;
     }
 
     /**
@@ -285,9 +1067,7 @@ public class NodeLabelCache extends ComputerListener {
      * @return The labelConfig to be used for the node
      */
     private LabelConfig getLabelConfig(final Node node) {
-        LabelConfig labelConfig = GlobalConfiguration.all()
-                .getInstance(PlatformLabelerGlobalConfiguration.class)
-                .getLabelConfig();
+        LabelConfig labelConfig = getGlobalConfiguration().getLabelConfig();
 
         PlatformLabelerNodeProperty nodeProperty = node.getNodeProperty(PlatformLabelerNodeProperty.class);
 
@@ -297,4 +1077,55 @@ public class NodeLabelCache extends ComputerListener {
         /* Return a defensive copy so that the caller cannot modify state of this object */
         return new LabelConfig(labelConfig);
     }
+
+    /**
+     * Returns the label rules of the controller.
+     *
+     * @return label rules, or rules that change nothing if the plugin is not configured
+     */
+    @NonNull
+    private static LabelRules getLabelRules() {
+        PlatformLabelerGlobalConfiguration config = getGlobalConfiguration();
+        return config == null ? LabelRules.NONE : config.getLabelRules();
+    }
+
+    /**
+     * Returns the global configuration of the plugin.
+     *
+     * @return global configuration of the plugin
+     */
+    private static PlatformLabelerGlobalConfiguration getGlobalConfiguration() {
+        return GlobalConfiguration.all().getInstance(PlatformLabelerGlobalConfiguration.class);
+    }
+
+    /** Inputs from which the labels of a node were computed. */
+    private static final class RefreshState {
+        private final LabelConfig labelConfig;
+        private final LabelRules rules;
+        private final PlatformDetails details;
+        private final Collection<LabelAtom> labels;
+
+        RefreshState(
+                LabelConfig labelConfig,
+                LabelRules rules,
+                @CheckForNull PlatformDetails details,
+                Collection<LabelAtom> labels) {
+            this.labelConfig = labelConfig;
+            this.rules = rules;
+            this.details = details;
+            this.labels = labels;
+        }
+
+        /* Labels are compared by identity so that labels replaced by anything else are recomputed */
+        boolean isCurrent(
+                LabelConfig labelConfig,
+                LabelRules rules,
+                @CheckForNull PlatformDetails details,
+                Collection<LabelAtom> labels) {
+            return this.labels == labels
+                    && this.labelConfig.equals(labelConfig)
+                    && this.rules.equals(rules)
+                    && (this.details == null ? details == null : this.details.hasSameLabels(details));
+        }
+    }
 }
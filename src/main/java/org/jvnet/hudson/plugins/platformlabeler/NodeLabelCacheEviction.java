@@ -0,0 +1,27 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import hudson.Extension;
+import hudson.model.PeriodicWork;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.GlobalConfiguration;
+
+/**
+ * Periodically forgets the cached platform details and labels of nodes that no longer exist, for
+ * example cloud agents removed without a node deletion event, and enforces the configured maximum
+ * number of cached nodes.
+ */
+@Extension
+public class NodeLabelCacheEviction extends PeriodicWork {
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.MINUTES.toMillis(10);
+    }
+
+    @Override
+    protected void doRun() {
+        PlatformLabelerGlobalConfiguration config =
+                GlobalConfiguration.all().getInstance(PlatformLabelerGlobalConfiguration.class);
+        NodeLabelCache.evict(config == null ? 0 : config.getMaxCachedNodes());
+    }
+}
@@ -0,0 +1,74 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import hudson.model.Node;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.Timer;
+
+/**
+ * Coalesces node saves into batches. Nodes enqueued within the batch window are saved together,
+ * and repeated saves of the same node within the window are reduced to a single save of its most
+ * recent instance. Each save takes the queue lock only briefly, never across the batch, so that
+ * writing many node configurations does not stall the scheduling of builds.
+ */
+final class NodeSaveQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(NodeSaveQueue.class.getName());
+
+    private final Consumer<Node> saver;
+
+    /* Pending nodes keyed by node name, guarded by this */
+    private final Map<String, Node> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
+    NodeSaveQueue(Consumer<Node> saver) {
+        this.saver = saver;
+    }
+
+    /**
+     * Save the node now or within the batch window.
+     *
+     * @param node node to be saved
+     * @param windowMillis batch window in milliseconds, zero or less saves immediately
+     */
+    void save(Node node, long windowMillis) {
+        if (windowMillis <= 0) {
+            saver.accept(node);
+            return;
+        }
+        synchronized (this) {
+            pending.put(node.getNodeName(), node);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        Timer.get().schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Save all pending nodes as one batch. */
+    void flush() {
+        List<Node> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        LOGGER.log(Level.FINEST, "Saving batch of {0} nodes", batch.size());
+        batch.forEach(saver);
+    }
+
+    /* Package protected for tests */
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+}
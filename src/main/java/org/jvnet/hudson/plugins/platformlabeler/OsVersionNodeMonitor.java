@@ -1,17 +1,32 @@
 package org.jvnet.hudson.plugins.platformlabeler;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.model.Computer;
 import hudson.node_monitors.AbstractAsyncNodeMonitorDescriptor;
 import hudson.node_monitors.NodeMonitor;
 import hudson.remoting.Callable;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.GlobalConfiguration;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 public class OsVersionNodeMonitor extends NodeMonitor {
 
+    private static final Logger LOGGER = Logger.getLogger(OsVersionNodeMonitor.class.getName());
+
     @DataBoundConstructor
     public OsVersionNodeMonitor() {}
 
@@ -19,9 +34,229 @@ public class OsVersionNodeMonitor extends NodeMonitor {
     @Symbol("osVersion")
     public static final class DescriptorImpl extends AbstractAsyncNodeMonitorDescriptor<PlatformDetails> {
 
+        /** Interval at which the collector checks the outstanding probes. */
+        private static final long COLLECT_INTERVAL_MILLIS = 100L;
+
+        /** Number of fingerprint checks that returned a probe result. */
+        private final transient AtomicLong fingerprintCheckCount = new AtomicLong();
+        /** Number of fingerprint checks that found the agent unchanged and skipped the full probe. */
+        private final transient AtomicLong fingerprintHitCount = new AtomicLong();
+        /** Number of fingerprint checks that failed or timed out, not counted as checks. */
+        private final transient AtomicLong fingerprintFailureCount = new AtomicLong();
+
+        /* Probes started on agents and not yet handed to the collector, guarded by the list */
+        private final transient List<PendingProbe> pendingProbes = new ArrayList<>();
+        /* True while the collector runs, guarded by pendingProbes */
+        private transient boolean collecting;
+
+        /**
+         * Probe the computer and update its platform labels if its platform details changed, for
+         * example by an operating system upgrade while connected. The base class passes the results
+         * of its callables to its final {@code monitorDetailed()} only, so the probe is started here
+         * and no callable is returned. A single collector thread applies the results of the probes
+         * of all agents as they arrive. The cached platform details are the monitoring data of the
+         * computer.
+         *
+         * @param c computer to be probed
+         * @return always null
+         */
         @Override
         protected Callable<PlatformDetails, IOException> createCallable(Computer c) {
-            return new PlatformDetailsTask();
+            VirtualChannel channel = c.getChannel();
+            NodeLabelCache nlc = ComputerListener.all().get(NodeLabelCache.class);
+            ChangedPlatformDetailsTask task = createProbe(c);
+            if (channel == null || nlc == null || task == null) {
+                return null;
+            }
+            long start = System.nanoTime();
+            Future<PlatformProbe> future;
+            try {
+                future = channel.callAsync(task);
+            } catch (IOException | RuntimeException e) {
+                ProbeMetrics.PROBE.recordFailure();
+                LOGGER.log(Level.FINE, "Platform probe of '%s' failed".formatted(c.getName()), e);
+                countFingerprintCheck(task, null);
+                return null;
+            }
+            synchronized (pendingProbes) {
+                pendingProbes.add(new PendingProbe(nlc, c, task, future, start));
+                if (collecting) {
+                    return null;
+                }
+                collecting = true;
+            }
+            Computer.threadPoolForRemoting.submit(this::collect);
+            return null;
+        }
+
+        /**
+         * Returns the probe of the computer in this monitor cycle.
+         *
+         * @param c computer to be probed
+         * @return probe to be run on the agent, or null if the computer is not probed in this cycle
+         */
+        @CheckForNull
+        ChangedPlatformDetailsTask createProbe(Computer c) {
+            if (NodeLabelCache.takeConnectSample(c.getName())) {
+                /* Probed when it connected, those details are the sample of this cycle */
+                return null;
+            }
+            PlatformLabelerGlobalConfiguration config =
+                    GlobalConfiguration.all().getInstance(PlatformLabelerGlobalConfiguration.class);
+            boolean fastProbe = config != null && config.isFastProbe();
+            /* Only probe again if the agent fingerprint changed */
+            return new ChangedPlatformDetailsTask(NodeLabelCache.getCachedFingerprint(c.getName()), fastProbe);
+        }
+
+        /**
+         * Apply the results of the started probes until none is outstanding. Probes that do not
+         * finish within the monitoring timeout are cancelled.
+         */
+        private void collect() {
+            List<PendingProbe> outstanding = new ArrayList<>();
+            try {
+                while (true) {
+                    synchronized (pendingProbes) {
+                        outstanding.addAll(pendingProbes);
+                        pendingProbes.clear();
+                        if (outstanding.isEmpty()) {
+                            collecting = false;
+                            return;
+                        }
+                    }
+                    long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(getMonitoringTimeOut());
+                    for (Iterator<PendingProbe> it = outstanding.iterator(); it.hasNext(); ) {
+                        PendingProbe pending = it.next();
+                        if (pending.future.isDone()) {
+                            it.remove();
+                            complete(pending);
+                        } else if (System.nanoTime() - pending.start >= timeoutNanos) {
+                            it.remove();
+                            pending.future.cancel(true);
+                            ProbeMetrics.PROBE.recordTimeout();
+                            LOGGER.log(Level.FINE, "Platform probe of ''{0}'' timed out", pending.computer.getName());
+                            countFingerprintCheck(pending.task, null);
+                        }
+                    }
+                    if (!outstanding.isEmpty()) {
+                        Thread.sleep(COLLECT_INTERVAL_MILLIS);
+                    }
+                }
+            } catch (InterruptedException e) {
+                synchronized (pendingProbes) {
+                    outstanding.addAll(pendingProbes);
+                    pendingProbes.clear();
+                    collecting = false;
+                }
+                for (PendingProbe pending : outstanding) {
+                    pending.future.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Record the platform details reported by a finished probe.
+         *
+         * @param pending finished probe
+         */
+        private void complete(PendingProbe pending) {
+            Computer c = pending.computer;
+            PlatformProbe probe = null;
+            try {
+                probe = pending.future.get();
+                ProbeMetrics.recordProbe(c.getName(), System.nanoTime() - pending.start, probe);
+                pending.nlc.updateProbedPlatformDetails(c, probe);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | RuntimeException e) {
+                ProbeMetrics.PROBE.recordFailure();
+                LOGGER.log(Level.FINE, "Platform probe of '%s' failed".formatted(c.getName()), e);
+            } finally {
+                countFingerprintCheck(pending.task, probe);
+            }
+        }
+
+        /**
+         * Count a fingerprint check by its result.
+         *
+         * @param task probe that was run
+         * @param probe result of the probe, or null if it failed or timed out
+         */
+        private void countFingerprintCheck(ChangedPlatformDetailsTask task, @CheckForNull PlatformProbe probe) {
+            if (!task.isFingerprintCheck()) {
+                return;
+            }
+            if (probe == null) {
+                fingerprintFailureCount.incrementAndGet();
+                return;
+            }
+            fingerprintCheckCount.incrementAndGet();
+            if (probe.getDetails() == null) {
+                fingerprintHitCount.incrementAndGet();
+            }
+            LOGGER.log(Level.FINEST, "Platform fingerprint hit ratio {0} after {1} checks", new Object[] {
+                getFingerprintHitRatio(), fingerprintCheckCount.get()
+            });
+        }
+
+        /**
+         * Returns the platform details of the computer, those computed when it connected or
+         * reported by the latest probe of the monitor.
+         *
+         * @param c computer whose platform details are returned
+         * @return platform details of the computer or null if unknown
+         */
+        @Override
+        public PlatformDetails get(Computer c) {
+            return NodeLabelCache.getCachedPlatformDetails(c.getName());
+        }
+
+        /**
+         * Returns the fraction of fingerprint checks that found the agent unchanged, so that the
+         * full platform probe was skipped. Checks that failed or timed out are not included.
+         *
+         * @return fingerprint hit ratio between 0 and 1, or 0 if no check returned
+         */
+        public double getFingerprintHitRatio() {
+            long checks = fingerprintCheckCount.get();
+            return checks == 0 ? 0.0 : (double) fingerprintHitCount.get() / checks;
+        }
+
+        /**
+         * Returns the number of fingerprint checks that failed or timed out.
+         *
+         * @return number of failed fingerprint checks
+         */
+        public long getFingerprintFailureCount() {
+            return fingerprintFailureCount.get();
+        }
+
+        /* Package protected for tests */
+        long getFingerprintCheckCount() {
+            return fingerprintCheckCount.get();
+        }
+
+        /** Probe started on an agent whose result was not applied yet. */
+        private static final class PendingProbe {
+            private final NodeLabelCache nlc;
+            private final Computer computer;
+            private final ChangedPlatformDetailsTask task;
+            private final Future<PlatformProbe> future;
+            private final long start;
+
+            PendingProbe(
+                    NodeLabelCache nlc,
+                    Computer computer,
+                    ChangedPlatformDetailsTask task,
+                    Future<PlatformProbe> future,
+                    long start) {
+                this.nlc = nlc;
+                this.computer = computer;
+                this.task = task;
+                this.future = future;
+                this.start = start;
+            }
         }
 
         @NonNull
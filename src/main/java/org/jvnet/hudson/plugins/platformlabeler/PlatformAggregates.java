@@ -0,0 +1,95 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Number of nodes per platform field value, maintained as platform details of nodes are added,
+ * replaced and removed. Answers questions like "how many agents run Rocky 9 on aarch64" without
+ * visiting every node.
+ */
+final class PlatformAggregates {
+
+    /** Platform details fields that are counted, in the order they are reported. */
+    private static final Map<String, Function<PlatformDetails, String>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("name", PlatformDetails::getName);
+        FIELDS.put("nameVersion", PlatformDetails::getNameVersion);
+        FIELDS.put("architecture", PlatformDetails::getArchitecture);
+        FIELDS.put("architectureNameVersion", PlatformDetails::getArchitectureNameVersion);
+        FIELDS.put("osName", PlatformDetails::getOsName);
+    }
+
+    /* Node counts keyed by field, then by field value */
+    private final Map<String, ConcurrentMap<String, Long>> counts = new LinkedHashMap<>();
+
+    PlatformAggregates() {
+        for (String field : FIELDS.keySet()) {
+            counts.put(field, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Moves one node from the counts of its previous platform details to those of its current
+     * ones.
+     *
+     * @param previous previous platform details of the node, or null if the node was not counted
+     * @param current current platform details of the node, or null if the node was removed
+     */
+    void replace(@CheckForNull PlatformDetails previous, @CheckForNull PlatformDetails current) {
+        if (previous != null && previous.equals(current)) {
+            return;
+        }
+        for (Map.Entry<String, Function<PlatformDetails, String>> field : FIELDS.entrySet()) {
+            ConcurrentMap<String, Long> fieldCounts = counts.get(field.getKey());
+            if (previous != null) {
+                add(fieldCounts, field.getValue().apply(previous), -1L);
+            }
+            if (current != null) {
+                add(fieldCounts, field.getValue().apply(current), 1L);
+            }
+        }
+    }
+
+    private static void add(ConcurrentMap<String, Long> fieldCounts, @CheckForNull String value, long delta) {
+        if (value == null) {
+            return;
+        }
+        /* Values without nodes are removed so that the counts do not grow with past platforms */
+        fieldCounts.compute(value, (key, count) -> {
+            long updated = (count == null ? 0L : count) + delta;
+            return updated <= 0L ? null : updated;
+        });
+    }
+
+    /**
+     * Returns the number of nodes with the value of the field.
+     *
+     * @param field name of a counted field, like "nameVersion"
+     * @param value value of the field, like "Rocky-9.5"
+     * @return number of nodes, 0 if the field is not counted
+     */
+    long count(@NonNull String field, @NonNull String value) {
+        ConcurrentMap<String, Long> fieldCounts = counts.get(field);
+        return fieldCounts == null ? 0L : fieldCounts.getOrDefault(value, 0L);
+    }
+
+    /**
+     * Returns a copy of all counts.
+     *
+     * @return node counts keyed by field, then by field value sorted by value
+     */
+    @NonNull
+    Map<String, Map<String, Long>> snapshot() {
+        Map<String, Map<String, Long>> snapshot = new LinkedHashMap<>();
+        counts.forEach((field, fieldCounts) -> snapshot.put(field, new TreeMap<>(fieldCounts)));
+        return snapshot;
+    }
+}
@@ -4,6 +4,9 @@ import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
 import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
 
@@ -22,6 +25,11 @@ public class PlatformDetails implements Serializable {
     private final String architectureNameVersion;
     private final String architectureName;
     private final String nameVersion;
+    private final int cpuCount;
+    private final long memoryBytes;
+    private final int cpuLimit;
+    private final long memoryLimitBytes;
+    private final String cpuFeatures;
 
     /**
      * Platform details constructor (deprecated).
@@ -68,6 +76,59 @@ public class PlatformDetails implements Serializable {
             @NonNull String version,
             @CheckForNull String windowsFeatureUpdate,
             @CheckForNull String osName) {
+        this(name, architecture, version, windowsFeatureUpdate, osName, 0, 0L);
+    }
+
+    /**
+     * Platform details constructor with the capacity of the node.
+     *
+     * @param name name of operating system, as in windows, debian, ubuntu, etc.
+     * @param architecture hardware architecture, as in amd64, aarch64, etc.
+     * @param version version of operating system, as in 9.1, 14.04, etc.
+     * @param windowsFeatureUpdate windows feature update version string, as in 1809, 1903, 2009,
+     *     2103, etc.
+     * @param osName name of operating system as provided by the Java os.name property
+     * @param cpuCount number of logical processors, 0 if unknown
+     * @param memoryBytes total memory in bytes, 0 if unknown
+     */
+    PlatformDetails(
+            @NonNull String name,
+            @NonNull String architecture,
+            @NonNull String version,
+            @CheckForNull String windowsFeatureUpdate,
+            @CheckForNull String osName,
+            int cpuCount,
+            long memoryBytes) {
+        this(name, architecture, version, windowsFeatureUpdate, osName, cpuCount, memoryBytes, 0, 0L, "");
+    }
+
+    /**
+     * Platform details constructor with the capacity and the container limits of the node.
+     *
+     * @param name name of operating system, as in windows, debian, ubuntu, etc.
+     * @param architecture hardware architecture, as in amd64, aarch64, etc.
+     * @param version version of operating system, as in 9.1, 14.04, etc.
+     * @param windowsFeatureUpdate windows feature update version string, as in 1809, 1903, 2009,
+     *     2103, etc.
+     * @param osName name of operating system as provided by the Java os.name property
+     * @param cpuCount number of logical processors, 0 if unknown
+     * @param memoryBytes total memory in bytes, 0 if unknown
+     * @param cpuLimit number of processors allowed by the control group CPU quota, 0 if none
+     * @param memoryLimitBytes control group memory limit in bytes, 0 if none
+     * @param cpuFeatures space separated instruction set extensions of the processor, as in avx2,
+     *     sve, etc.
+     */
+    PlatformDetails(
+            @NonNull String name,
+            @NonNull String architecture,
+            @NonNull String version,
+            @CheckForNull String windowsFeatureUpdate,
+            @CheckForNull String osName,
+            int cpuCount,
+            long memoryBytes,
+            int cpuLimit,
+            long memoryLimitBytes,
+            @CheckForNull String cpuFeatures) {
         this.name = name;
         this.architecture = architecture;
         this.version = version;
@@ -83,6 +144,76 @@ public class PlatformDetails implements Serializable {
             osName = null;
         }
         this.osName = osName;
+        this.cpuCount = Math.max(0, cpuCount);
+        this.memoryBytes = Math.max(0L, memoryBytes);
+        this.cpuLimit = Math.max(0, cpuLimit);
+        this.memoryLimitBytes = Math.max(0L, memoryLimitBytes);
+        this.cpuFeatures = cpuFeatures == null ? "" : cpuFeatures;
+    }
+
+    /**
+     * Returns these platform details with the capacity of the node.
+     *
+     * @param cpuCount number of logical processors, 0 if unknown
+     * @param memoryBytes total memory in bytes, 0 if unknown
+     * @return platform details with the capacity
+     */
+    @NonNull
+    PlatformDetails withCapacity(int cpuCount, long memoryBytes) {
+        return new PlatformDetails(
+                name,
+                architecture,
+                version,
+                windowsFeatureUpdate,
+                osName,
+                cpuCount,
+                memoryBytes,
+                cpuLimit,
+                memoryLimitBytes,
+                cpuFeatures);
+    }
+
+    /**
+     * Returns these platform details with the control group limits of the node.
+     *
+     * @param cpuLimit number of processors allowed by the CPU quota, 0 if none
+     * @param memoryLimitBytes memory limit in bytes, 0 if none
+     * @return platform details with the limits
+     */
+    @NonNull
+    PlatformDetails withLimits(int cpuLimit, long memoryLimitBytes) {
+        return new PlatformDetails(
+                name,
+                architecture,
+                version,
+                windowsFeatureUpdate,
+                osName,
+                cpuCount,
+                memoryBytes,
+                cpuLimit,
+                memoryLimitBytes,
+                cpuFeatures);
+    }
+
+    /**
+     * Returns these platform details with the instruction set extensions of the node processor.
+     *
+     * @param cpuFeatures space separated extensions, as in avx2, sve, etc.
+     * @return platform details with the extensions
+     */
+    @NonNull
+    PlatformDetails withCpuFeatures(@CheckForNull String cpuFeatures) {
+        return new PlatformDetails(
+                name,
+                architecture,
+                version,
+                windowsFeatureUpdate,
+                osName,
+                cpuCount,
+                memoryBytes,
+                cpuLimit,
+                memoryLimitBytes,
+                cpuFeatures);
     }
 
     @NonNull
@@ -132,4 +263,130 @@ public class PlatformDetails implements Serializable {
     public String getOsName() {
         return osName;
     }
+
+    /**
+     * Returns the number of logical processors of the node.
+     *
+     * @return number of logical processors, 0 if unknown
+     */
+    @Exported
+    public int getCpuCount() {
+        return cpuCount;
+    }
+
+    /**
+     * Returns the total memory of the node.
+     *
+     * @return total memory in bytes, 0 if unknown
+     */
+    @Exported
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * Returns the number of processors allowed by the control group CPU quota of the node.
+     *
+     * @return number of processors, 0 if the node has no CPU quota
+     */
+    @Exported
+    public int getCpuLimit() {
+        return cpuLimit;
+    }
+
+    /**
+     * Returns the control group memory limit of the node.
+     *
+     * @return memory limit in bytes, 0 if the node has no memory limit
+     */
+    @Exported
+    public long getMemoryLimitBytes() {
+        return memoryLimitBytes;
+    }
+
+    /**
+     * Returns the known instruction set extensions of the node processor, like "avx avx2 fma".
+     *
+     * @return sorted space separated extensions, empty if none are known
+     */
+    @Exported
+    @NonNull
+    public String getCpuFeatures() {
+        /* Null when read from a store written before the extensions were reported */
+        return cpuFeatures == null ? "" : cpuFeatures;
+    }
+
+    /**
+     * Returns the number of processors that builds on the node can use, the smaller of the
+     * processor count and the CPU quota.
+     *
+     * @return effective number of processors, 0 if unknown
+     */
+    int getEffectiveCpuCount() {
+        return cpuLimit > 0 && (cpuCount == 0 || cpuLimit < cpuCount) ? cpuLimit : cpuCount;
+    }
+
+    /**
+     * Returns the memory that builds on the node can use, the smaller of the total memory and the
+     * memory limit.
+     *
+     * @return effective memory in bytes, 0 if unknown
+     */
+    long getEffectiveMemoryBytes() {
+        return memoryLimitBytes > 0 && (memoryBytes == 0 || memoryLimitBytes < memoryBytes)
+                ? memoryLimitBytes
+                : memoryBytes;
+    }
+
+    /**
+     * Returns the capacity labels of the node: processor and memory tiers, limit tiers and
+     * processor extensions. Agents with the same tiers get the same labels even if their exact
+     * capacity differs.
+     *
+     * @return capacity tiers, null elements for unknown capacity
+     */
+    @NonNull
+    List<String> getCapacityTiers() {
+        return Arrays.asList(
+                AgentCapacity.cpuLabel(getEffectiveCpuCount()),
+                AgentCapacity.memoryLabel(getEffectiveMemoryBytes()),
+                AgentCapacity.cpuLimitLabel(cpuLimit),
+                AgentCapacity.memoryLimitLabel(memoryLimitBytes),
+                getCpuFeatures());
+    }
+
+    /**
+     * Returns true if the other platform details produce the same labels as these.
+     *
+     * @param other platform details to compare, may be null
+     * @return true if the platform and the capacity tiers are equal
+     */
+    boolean hasSameLabels(@CheckForNull PlatformDetails other) {
+        return equals(other) && getCapacityTiers().equals(other.getCapacityTiers());
+    }
+
+    /**
+     * Compares the platform of the nodes. The exact processor count, memory and limits are not
+     * compared, use {@link #hasSameLabels} to also compare the capacity tiers.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PlatformDetails that = (PlatformDetails) o;
+        return name.equals(that.name)
+                && architecture.equals(that.architecture)
+                && version.equals(that.version)
+                && Objects.equals(windowsFeatureUpdate, that.windowsFeatureUpdate)
+                && Objects.equals(osName, that.osName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, architecture, version, windowsFeatureUpdate, osName);
+    }
 }
@@ -0,0 +1,204 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.XmlFile;
+import hudson.util.XStream2;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+
+/**
+ * Persistent cache of the platform details last reported by each agent, stored in a file in
+ * JENKINS_HOME. After a controller restart an agent whose fingerprint has not changed receives its
+ * labels from this cache instead of running the full platform probe.
+ */
+final class PlatformDetailsStore {
+
+    private static final Logger LOGGER = Logger.getLogger(PlatformDetailsStore.class.getName());
+
+    private static final XStream2 XSTREAM = new XStream2();
+
+    static {
+        XSTREAM.alias("platformDetailsStore", PlatformDetailsStore.class);
+        XSTREAM.alias("entry", Entry.class);
+        XSTREAM.alias("fingerprint", PlatformFingerprint.class);
+        XSTREAM.alias("details", PlatformDetails.class);
+    }
+
+    /** Delay before changed entries are written, so that a reconnect storm writes the file once. */
+    private static final long SAVE_DELAY_MILLIS = 1000L;
+
+    private static PlatformDetailsStore instance;
+
+    /** Cached entries keyed by node name. */
+    private Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final transient File file;
+    private final transient AtomicBoolean saveScheduled = new AtomicBoolean(false);
+
+    /* Package protected for tests */
+    PlatformDetailsStore(@NonNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the store of the running Jenkins controller, loading it from disk on first use.
+     *
+     * @return store of the running Jenkins controller
+     */
+    @NonNull
+    static synchronized PlatformDetailsStore get() {
+        File file = new File(Jenkins.get().getRootDir(), PlatformDetailsStore.class.getName() + ".xml");
+        if (instance == null || !instance.file.equals(file)) {
+            instance = new PlatformDetailsStore(file);
+            instance.load();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the cached platform details of the node if they were computed with a matching
+     * fingerprint.
+     *
+     * @param nodeName name of the node
+     * @param fingerprint current fingerprint of the agent
+     * @return cached platform details or null if the agent must be probed
+     */
+    @CheckForNull
+    PlatformDetails lookup(@NonNull String nodeName, @CheckForNull PlatformFingerprint fingerprint) {
+        Entry entry = entries.get(nodeName);
+        if (entry == null || fingerprint == null || !fingerprint.matches(entry.fingerprint)) {
+            return null;
+        }
+        return entry.details;
+    }
+
+    /**
+     * Returns the fingerprint of the agent when its stored platform details were computed.
+     *
+     * @param nodeName name of the node
+     * @return stored fingerprint or null if no platform details are stored for the node
+     */
+    @CheckForNull
+    PlatformFingerprint getFingerprint(@NonNull String nodeName) {
+        Entry entry = entries.get(nodeName);
+        return entry == null ? null : entry.fingerprint;
+    }
+
+    /**
+     * Records the platform details computed for the node and schedules a save.
+     *
+     * @param nodeName name of the node
+     * @param fingerprint fingerprint of the agent when the details were computed
+     * @param details platform details computed for the node
+     */
+    void put(@NonNull String nodeName, @NonNull PlatformFingerprint fingerprint, @NonNull PlatformDetails details) {
+        if (!fingerprint.isReusable()) {
+            return;
+        }
+        Entry previous = entries.put(nodeName, new Entry(fingerprint, details));
+        if (previous == null
+                || !previous.fingerprint.equals(fingerprint)
+                || !previous.details.hasSameLabels(details)) {
+            scheduleSave();
+        }
+    }
+
+    /**
+     * Forgets the platform details of the node.
+     *
+     * @param nodeName name of the node
+     */
+    void remove(@NonNull String nodeName) {
+        if (entries.remove(nodeName) != null) {
+            scheduleSave();
+        }
+    }
+
+    /**
+     * Returns the number of nodes with stored platform details.
+     *
+     * @return number of stored entries
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the stored entries, for the memory estimate of the label cache.
+     *
+     * @return read-only view of the stored entries
+     */
+    @NonNull
+    Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled.compareAndSet(false, true)) {
+            Timer.get().schedule(this::save, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /* Package protected for tests */
+    void save() {
+        saveScheduled.set(false);
+        try {
+            getXmlFile().write(this);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save platform details cache " + file, e);
+        }
+    }
+
+    /* Package protected for tests */
+    void load() {
+        XmlFile xmlFile = getXmlFile();
+        if (!xmlFile.exists()) {
+            return;
+        }
+        try {
+            xmlFile.unmarshal(this);
+            if (entries == null) {
+                entries = new ConcurrentHashMap<>();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to load platform details cache " + file + ", ignoring it", e);
+            entries = new ConcurrentHashMap<>();
+        }
+    }
+
+    private XmlFile getXmlFile() {
+        return new XmlFile(XSTREAM, file);
+    }
+
+    /** Platform details of one node with the fingerprint used to compute them. */
+    static final class Entry {
+        private final PlatformFingerprint fingerprint;
+        private final PlatformDetails details;
+
+        Entry(@NonNull PlatformFingerprint fingerprint, @NonNull PlatformDetails details) {
+            this.fingerprint = fingerprint;
+            this.details = details;
+        }
+
+        @NonNull
+        PlatformFingerprint getFingerprint() {
+            return fingerprint;
+        }
+
+        @NonNull
+        PlatformDetails getDetails() {
+            return details;
+        }
+    }
+}
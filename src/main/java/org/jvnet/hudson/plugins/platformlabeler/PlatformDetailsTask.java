@@ -35,8 +35,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Serial;
-import java.nio.file.Files;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.logging.Level;
@@ -54,6 +54,7 @@ class PlatformDetailsTask implements Callable<PlatformDetails, IOException> {
     private static final String RELEASE = "release";
     private static final String VERSION = "VERSION =";
     private static final String PATCHLEVEL = "PATCHLEVEL =";
+    private static final Pattern SUSE_NAME_PATTERN = Pattern.compile("^(SUSE.*?)\\d+.*$");
     /** Unknown field value string. Package protected for use by LsbRelease class */
     static final String UNKNOWN_VALUE_STRING = "unknown+check_lsb_release_installed";
     /** Unknown Windows field value string. Package protected for use by WindowsRelease class */
@@ -63,6 +64,24 @@ class PlatformDetailsTask implements Callable<PlatformDetails, IOException> {
     @Serial
     private static final long serialVersionUID = 2020 - 04 - 16;
 
+    /** True if Linux release details are read from release files before running lsb_release. */
+    private final boolean fastProbe;
+
+    /** Create a task that runs lsb_release to compute Linux release details. */
+    PlatformDetailsTask() {
+        this(false);
+    }
+
+    /**
+     * Create a task that computes the platform details of the agent.
+     *
+     * @param fastProbe true to read Linux release details from release files and run lsb_release
+     *     only when the files do not identify the distribution and its version
+     */
+    PlatformDetailsTask(boolean fastProbe) {
+        this.fastProbe = fastProbe;
+    }
+
     /**
      * Checks that required SLAVE role is allowed.
      *
@@ -85,7 +104,12 @@ class PlatformDetailsTask implements Callable<PlatformDetails, IOException> {
         final String arch = System.getProperty("os.arch", UNKNOWN_VALUE_STRING);
         final String name = System.getProperty("os.name", UNKNOWN_VALUE_STRING);
         final String version = System.getProperty("os.version", UNKNOWN_VALUE_STRING);
-        return computeLabels(arch, name, version);
+        releaseFiles = null;
+        CgroupLimits limits = CgroupLimits.read();
+        return computeLabels(arch, name, version)
+                .withCapacity(AgentCapacity.cpuCount(), AgentCapacity.memoryBytes())
+                .withLimits(limits.getCpuLimit(), limits.getMemoryLimitBytes())
+                .withCpuFeatures(CpuFeatures.read());
     }
 
     private boolean equalsIgnoreCase(@NonNull String s1, @NonNull String s2) {
@@ -127,14 +151,13 @@ class PlatformDetailsTask implements Callable<PlatformDetails, IOException> {
             return arch;
         }
         try {
-            Process p = Runtime.getRuntime().exec(new String[] {"/bin/uname", "-m"});
-            p.waitFor();
-            try (InputStream stream = p.getInputStream()) {
-                return getCanonicalLinuxArchStream(stream, arch);
-            }
-        } catch (IOException | InterruptedException e) {
+            return getCanonicalLinuxArchStream(CommandRunner.run("/bin/uname", "-m").getOutput(), arch);
+        } catch (IOException e) {
             /* Return arch instead of throwing an exception */
             LOGGER.log(Level.FINEST, "uname -m failed", e);
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.FINEST, "uname -m interrupted", e);
+            Thread.currentThread().interrupt();
         }
         return arch;
     }
@@ -168,7 +191,7 @@ class PlatformDetailsTask implements Callable<PlatformDetails, IOException> {
     protected PlatformDetails computeLabels(
             @NonNull final String arch, @NonNull final String name, @NonNull final String version) throws IOException {
         if (name.toLowerCase(Locale.ENGLISH).startsWith("linux")) {
-            return computeLabels(arch, name, version, new LsbRelease());
+            return computeLabels(arch, name, version, getLinuxRelease());
         }
         if (name.toLowerCase(Locale.ENGLISH).startsWith("windows")) {
             return computeLabels(arch, name, version, new WindowsRelease());
@@ -176,6 +199,23 @@ class PlatformDetailsTask implements Callable<PlatformDetails, IOException> {
         return computeLabels(arch, name, version, null);
     }
 
+    /* Package protected for use in tests */
+    @NonNull
+    PlatformDetailsRelease getLinuxRelease() {
+        if (fastProbe) {
+            FileRelease fileRelease = new FileRelease(
+                    readReleaseFile(lsbRelease),
+                    readReleaseFile(osRelease),
+                    readReleaseFile(redhatRelease),
+                    readReleaseFile(debianVersion));
+            if (fileRelease.isComplete()) {
+                return fileRelease;
+            }
+            LOGGER.log(Level.FINEST, "Release files do not identify the distribution, running lsb_release");
+        }
+        return new LsbRelease();
+    }
+
     private String toLowerCase(@NonNull String s1) {
         return s1.toLowerCase(Locale.ENGLISH);
     }
@@ -370,12 +410,32 @@ class PlatformDetailsTask implements Callable<PlatformDetails, IOException> {
         PREFERRED_LINUX_OS_NAMES.put("ubuntu", "Ubuntu");
     }
 
+    /**
+     * Returns the distributor ID that lsb_release reports for a Linux os-release or redhat-release
+     * identifier.
+     *
+     * @param id distribution identifier, as in "ubuntu" or "rhel"
+     * @return preferred distributor ID, or the identifier itself if it has no preferred name
+     */
+    @CheckForNull
+    static String preferredLinuxOsName(@CheckForNull String id) {
+        return id == null ? null : PREFERRED_LINUX_OS_NAMES.getOrDefault(id, id);
+    }
+
+    private File lsbRelease = new File("/etc/lsb-release");
     private File osRelease = new File("/etc/os-release");
     private File debianVersion = new File("/etc/debian_version");
     private File redhatRelease = new File("/etc/redhat-release");
     private File suseRelease = new File("/etc/SuSE-release");
 
+    /** Release files read by this probe, keyed by file. Each file is read at most once per probe. */
+    private transient Map<File, ReleaseFile> releaseFiles;
+
     /* Package protected for use in tests */
+    void setLsbReleaseFile(File lsbRelease) {
+        this.lsbRelease = lsbRelease;
+    }
+
     void setOsReleaseFile(File osRelease) {
         this.osRelease = osRelease;
     }
@@ -392,24 +452,29 @@ class PlatformDetailsTask implements Callable<PlatformDetails, IOException> {
         this.debianVersion = debianVersion;
     }
 
+    /**
+     * Returns the parsed release file, reading it only on its first use in this probe.
+     *
+     * @param file release file, or null if there is none
+     * @return contents of the release file, empty if the file is missing or unreadable
+     */
+    @NonNull
+    private ReleaseFile readReleaseFile(@CheckForNull File file) {
+        if (file == null) {
+            return ReleaseFile.read(null);
+        }
+        if (releaseFiles == null) {
+            releaseFiles = new HashMap<>();
+        }
+        return releaseFiles.computeIfAbsent(file, ReleaseFile::read);
+    }
+
     /* Package protected for use in tests */
     @NonNull
     String getReleaseIdentifier(@NonNull String field) {
-        String value = UNKNOWN_VALUE_STRING;
-        if (osRelease == null) {
-            return value;
-        }
-        try (BufferedReader br = new BufferedReader(Files.newBufferedReader(osRelease.toPath()))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.startsWith(field + "=")) {
-                    String[] parts = line.split("=");
-                    value = parts[1].replace("\"", "").trim();
-                }
-            }
-        } catch (IOException notFound) {
-            // Ignore IOException
-            LOGGER.log(Level.FINEST, "os-release not found", notFound);
+        String value = readReleaseFile(osRelease).get(field);
+        if (value == null) {
+            return UNKNOWN_VALUE_STRING;
         }
         return PREFERRED_LINUX_OS_NAMES.getOrDefault(value, value);
     }
@@ -418,25 +483,16 @@ class PlatformDetailsTask implements Callable<PlatformDetails, IOException> {
     @NonNull
     String getRedhatReleaseIdentifier(@NonNull String field) {
         String value = UNKNOWN_VALUE_STRING;
-        if (redhatRelease == null) {
-            return value;
-        }
-        try (BufferedReader br = new BufferedReader(Files.newBufferedReader(redhatRelease.toPath()))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.contains(RELEASE)) {
-                    if (field.equals("ID")) {
-                        value = line.substring(0, line.indexOf(RELEASE)).trim();
-                    }
-                    if (field.equals("VERSION_ID")) {
-                        value = line.substring(line.indexOf(RELEASE) + RELEASE.length(), line.indexOf("("))
-                                .trim();
-                    }
+        for (String line : readReleaseFile(redhatRelease).getLines()) {
+            if (line.contains(RELEASE)) {
+                if (field.equals("ID")) {
+                    value = line.substring(0, line.indexOf(RELEASE)).trim();
+                }
+                if (field.equals("VERSION_ID")) {
+                    value = line.substring(line.indexOf(RELEASE) + RELEASE.length(), line.indexOf("("))
+                            .trim();
                 }
             }
-        } catch (IOException notFound) {
-            // Ignore IOException
-            LOGGER.log(Level.FINEST, "redhat-release not found", notFound);
         }
         return PREFERRED_LINUX_OS_NAMES.getOrDefault(value, value);
     }
@@ -447,26 +503,21 @@ class PlatformDetailsTask implements Callable<PlatformDetails, IOException> {
         String version = null;
         String patchLevel = null;
         String name = UNKNOWN_VALUE_STRING;
-        Pattern pattern = Pattern.compile("^(SUSE.*?)\\d+.*$");
-        if (suseRelease == null) {
+        ReleaseFile release = readReleaseFile(suseRelease);
+        if (!release.exists()) {
             return value;
         }
-        try (BufferedReader br = new BufferedReader(Files.newBufferedReader(suseRelease.toPath()))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.startsWith(VERSION)) {
-                    version = line.substring(VERSION.length()).trim();
-                }
-                if (line.startsWith(PATCHLEVEL)) {
-                    patchLevel = line.substring(PATCHLEVEL.length()).trim();
-                }
-                Matcher matcher = pattern.matcher(line.trim());
-                if (matcher.matches()) {
-                    name = matcher.group(1).trim();
-                }
+        for (String line : release.getLines()) {
+            if (line.startsWith(VERSION)) {
+                version = line.substring(VERSION.length()).trim();
+            }
+            if (line.startsWith(PATCHLEVEL)) {
+                patchLevel = line.substring(PATCHLEVEL.length()).trim();
+            }
+            Matcher matcher = SUSE_NAME_PATTERN.matcher(line.trim());
+            if (matcher.matches()) {
+                name = matcher.group(1).trim();
             }
-        } catch (IOException notFound) {
-            return value;
         }
         if (field.equals("ID")) {
             value = name;
@@ -486,32 +537,26 @@ class PlatformDetailsTask implements Callable<PlatformDetails, IOException> {
 
     @NonNull
     String getDebianVersionIdentifier() {
-        if (debianVersion != null) {
-            try (BufferedReader br = new BufferedReader(Files.newBufferedReader(debianVersion.toPath()))) {
-                String line = br.readLine();
-                return line != null ? line.trim() : UNKNOWN_VALUE_STRING;
-            } catch (IOException notFound) {
-                return UNKNOWN_VALUE_STRING;
-            }
-        }
-        return UNKNOWN_VALUE_STRING;
+        List<String> lines = readReleaseFile(debianVersion).getLines();
+        return lines.isEmpty() ? UNKNOWN_VALUE_STRING : lines.getFirst().trim();
     }
 
     @NonNull
     String getFreeBsdVersion(String version) {
         try {
-            Process p = Runtime.getRuntime().exec("/bin/freebsd-version -u");
-            p.waitFor();
-            try (InputStream stream = p.getInputStream();
-                    BufferedReader b = new BufferedReader(new InputStreamReader(stream, "UTF-8"))) {
+            InputStream stream = CommandRunner.run("/bin/freebsd-version", "-u").getOutput();
+            try (BufferedReader b = new BufferedReader(new InputStreamReader(stream, "UTF-8"))) {
                 String line = b.readLine();
                 if (line != null) {
                     version = line;
                 }
             }
-        } catch (IOException | InterruptedException e) {
+        } catch (IOException e) {
             /* Return version instead of throwing an exception */
             LOGGER.log(Level.FINEST, "freebsd version exception", e);
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.FINEST, "freebsd version interrupted", e);
+            Thread.currentThread().interrupt();
         }
         return version;
     }
@@ -0,0 +1,75 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Cheaply computed summary of the operating system of an agent. When the fingerprint of an agent
+ * has not changed, the platform details previously computed for that agent are still valid.
+ */
+final class PlatformFingerprint implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final SortedMap<String, String> components;
+    private final boolean reusable;
+
+    /**
+     * Fingerprint constructor.
+     *
+     * @param components named values that together identify the operating system
+     * @param reusable false if the fingerprint cannot detect all platform changes
+     */
+    PlatformFingerprint(@NonNull Map<String, String> components, boolean reusable) {
+        this.components = new TreeMap<>(components);
+        this.reusable = reusable;
+    }
+
+    @NonNull
+    Map<String, String> getComponents() {
+        return Collections.unmodifiableSortedMap(components);
+    }
+
+    boolean isReusable() {
+        return reusable;
+    }
+
+    /**
+     * Returns true if platform details computed with the other fingerprint are valid for this one.
+     *
+     * @param other fingerprint recorded when the platform details were computed
+     * @return true if platform details computed with the other fingerprint may be reused
+     */
+    boolean matches(@CheckForNull PlatformFingerprint other) {
+        return other != null && reusable && other.reusable && components.equals(other.components);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PlatformFingerprint that)) {
+            return false;
+        }
+        return reusable == that.reusable && components.equals(that.components);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(components, reusable);
+    }
+
+    @Override
+    public String toString() {
+        return "PlatformFingerprint" + components + (reusable ? "" : " (not reusable)");
+    }
+}
@@ -0,0 +1,153 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.remoting.Callable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.security.Roles;
+import org.jenkinsci.remoting.RoleChecker;
+
+/**
+ * Compute a fingerprint of the agent operating system without starting any processes. Reads the
+ * Java system properties, the Linux boot id, the processor count and memory size with their
+ * control group limits, and hashes the processor extensions and the small release files that the
+ * platform probe reads.
+ */
+class PlatformFingerprintTask implements Callable<PlatformFingerprint, IOException> {
+
+    private static final Logger LOGGER = Logger.getLogger(PlatformFingerprintTask.class.getName());
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** Files whose content determines the platform details reported by the probe. */
+    private static final String[] RELEASE_FILES = {
+        "/etc/os-release",
+        "/etc/lsb-release",
+        "/etc/debian_version",
+        "/etc/redhat-release",
+        "/etc/SuSE-release",
+        "/bin/freebsd-version",
+    };
+
+    /** Changes on each boot of a Linux kernel, including the reboot that follows most upgrades. */
+    private static final String BOOT_ID_FILE = "/proc/sys/kernel/random/boot_id";
+
+    private String bootIdFile = BOOT_ID_FILE;
+    private String cpuinfoFile = CpuFeatures.CPUINFO_FILE;
+
+    /* Package protected for use in tests */
+    void setBootIdFile(String bootIdFile) {
+        this.bootIdFile = bootIdFile;
+    }
+
+    /* Package protected for use in tests */
+    void setCpuinfoFile(String cpuinfoFile) {
+        this.cpuinfoFile = cpuinfoFile;
+    }
+
+    /**
+     * Checks that required SLAVE role is allowed.
+     *
+     * @param checker role checker to be called to check SLAVE role
+     * @throws SecurityException on a security error
+     */
+    @Override
+    public void checkRoles(final RoleChecker checker) throws SecurityException {
+        checker.check(this, Roles.SLAVE);
+    }
+
+    @Override
+    public PlatformFingerprint call() throws IOException {
+        return computeFingerprint(
+                System.getProperty("os.arch", PlatformDetailsTask.UNKNOWN_VALUE_STRING),
+                System.getProperty("os.name", PlatformDetailsTask.UNKNOWN_VALUE_STRING),
+                System.getProperty("os.version", PlatformDetailsTask.UNKNOWN_VALUE_STRING),
+                RELEASE_FILES);
+    }
+
+    /* Package protected for tests */
+    @NonNull
+    PlatformFingerprint computeFingerprint(
+            @NonNull String arch, @NonNull String name, @NonNull String version, @NonNull String... releaseFiles) {
+        Map<String, String> components = new TreeMap<>();
+        components.put("os.arch", arch);
+        components.put("os.name", name);
+        components.put("os.version", version);
+        /* Resizing a virtual machine or container changes its capacity labels but not its release files */
+        components.put("cpus", Integer.toString(AgentCapacity.cpuCount()));
+        components.put("memory", Long.toString(AgentCapacity.memoryBytes()));
+        CgroupLimits limits = CgroupLimits.read();
+        components.put("cpu.limit", Integer.toString(limits.getCpuLimit()));
+        components.put("memory.limit", Long.toString(limits.getMemoryLimitBytes()));
+        /* Live migration to another host model changes the processor extensions without a reboot */
+        String cpuFeatures = CpuFeatures.read(new File(cpuinfoFile));
+        components.put("cpu.features", hash(cpuFeatures.getBytes(StandardCharsets.US_ASCII)));
+        String bootId = readBootId();
+        if (bootId != null) {
+            components.put("boot_id", bootId);
+        }
+        for (String releaseFile : releaseFiles) {
+            String hash = hashFile(new File(releaseFile));
+            if (hash != null) {
+                components.put(releaseFile, hash);
+            }
+        }
+        /* Windows feature updates do not change os.version, only the registry shows them */
+        boolean reusable = !name.toLowerCase(Locale.ENGLISH).startsWith("windows");
+        return new PlatformFingerprint(components, reusable);
+    }
+
+    @CheckForNull
+    private String readBootId() {
+        if (bootIdFile == null) {
+            return null;
+        }
+        File file = new File(bootIdFile);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return Files.readString(file.toPath(), StandardCharsets.US_ASCII).trim();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINEST, "Unable to read " + file, e);
+            return null;
+        }
+    }
+
+    @CheckForNull
+    private String hashFile(@NonNull File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return hash(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINEST, "Unable to hash " + file, e);
+            return "unreadable";
+        }
+    }
+
+    @NonNull
+    private static String hash(@NonNull byte[] content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            /* Every Java platform implements SHA-256 */
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.labels.LabelAtom;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Names of the nodes that carry each platform label. Answers which nodes have a platform label
+ * without visiting the assigned labels of every node.
+ */
+final class PlatformLabelIndex {
+
+    /* Node names keyed by label name */
+    private final ConcurrentMap<String, Set<String>> nodesByLabel = new ConcurrentHashMap<>();
+
+    /**
+     * Moves a node from the labels it had to the labels it has now.
+     *
+     * @param nodeName name of the node
+     * @param previous platform labels the node had, or null if it had none
+     * @param current platform labels the node has now, or null if it has none
+     */
+    void replace(
+            @NonNull String nodeName,
+            @CheckForNull Collection<LabelAtom> previous,
+            @CheckForNull Collection<LabelAtom> current) {
+        if (previous != null && previous.equals(current)) {
+            return;
+        }
+        if (current != null) {
+            for (LabelAtom label : current) {
+                nodesByLabel.compute(label.getName(), (name, nodes) -> {
+                    Set<String> updated = nodes == null ? ConcurrentHashMap.newKeySet() : nodes;
+                    updated.add(nodeName);
+                    return updated;
+                });
+            }
+        }
+        if (previous != null) {
+            for (LabelAtom label : previous) {
+                if (current != null && current.contains(label)) {
+                    continue;
+                }
+                /* Labels without nodes are removed so that the index does not grow with past platforms */
+                nodesByLabel.computeIfPresent(label.getName(), (name, nodes) -> {
+                    nodes.remove(nodeName);
+                    return nodes.isEmpty() ? null : nodes;
+                });
+            }
+        }
+    }
+
+    /**
+     * Returns the names of the nodes that carry the platform label.
+     *
+     * @param labelName name of the label
+     * @return sorted node names, empty if no node carries the label
+     */
+    @NonNull
+    Set<String> getNodes(@NonNull String labelName) {
+        Set<String> nodes = nodesByLabel.get(labelName);
+        return nodes == null ? Set.of() : new TreeSet<>(nodes);
+    }
+
+    /**
+     * Returns the number of nodes that carry the platform label.
+     *
+     * @param labelName name of the label
+     * @return number of nodes
+     */
+    int count(@NonNull String labelName) {
+        Set<String> nodes = nodesByLabel.get(labelName);
+        return nodes == null ? 0 : nodes.size();
+    }
+
+    /**
+     * Returns the number of nodes of every platform label.
+     *
+     * @return node counts keyed by label name, sorted by label name
+     */
+    @NonNull
+    Map<String, Integer> counts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        nodesByLabel.forEach((label, nodes) -> counts.put(label, nodes.size()));
+        return counts;
+    }
+}
@@ -0,0 +1,219 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.labels.LabelAtom;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable label sets shared by all nodes with the same platform details and label
+ * configuration. Large fleets run few distinct platforms, so label refreshes become a map lookup
+ * and the memory used by labels grows with the number of distinct platforms rather than with the
+ * number of nodes.
+ */
+final class PlatformLabelSets {
+
+    /**
+     * Upper bound on the number of retained label sets, reached only with unusual fleets. The least
+     * recently used set is dropped first, so the sets of the common platforms stay shared.
+     */
+    static final int MAX_LABEL_SETS = 10_000;
+
+    /* Label sets keyed by their inputs, guarded by the map */
+    private final Map<Key, Set<LabelAtom>> labelSets;
+    private final Function<String, LabelAtom> labelAtoms;
+
+    /**
+     * Label set cache constructor.
+     *
+     * @param labelAtoms returns the label atom with the given name
+     */
+    PlatformLabelSets(@NonNull Function<String, LabelAtom> labelAtoms) {
+        this(labelAtoms, MAX_LABEL_SETS);
+    }
+
+    /* Package protected for tests */
+    PlatformLabelSets(@NonNull Function<String, LabelAtom> labelAtoms, int maxLabelSets) {
+        this.labelAtoms = labelAtoms;
+        this.labelSets = new LruMap<>(maxLabelSets);
+    }
+
+    /**
+     * Returns the shared label set for the platform details and label configuration.
+     *
+     * @param details platform details of a node
+     * @param labelConfig label configuration of the node
+     * @return immutable set of labels
+     */
+    @NonNull
+    Set<LabelAtom> get(@NonNull PlatformDetails details, @NonNull LabelConfig labelConfig) {
+        return get(details, labelConfig, LabelRules.NONE);
+    }
+
+    /**
+     * Returns the shared label set for the platform details and label configuration, collapsed
+     * by the label rules.
+     *
+     * @param details platform details of a node
+     * @param labelConfig label configuration of the node
+     * @param rules label rules of the controller
+     * @return immutable set of labels
+     */
+    @NonNull
+    Set<LabelAtom> get(@NonNull PlatformDetails details, @NonNull LabelConfig labelConfig, @NonNull LabelRules rules) {
+        Key key = new Key(details, labelConfig, rules);
+        synchronized (labelSets) {
+            Set<LabelAtom> labels = labelSets.get(key);
+            if (labels != null) {
+                return labels;
+            }
+        }
+        /* Copy the configuration so that later changes by the caller do not alter the key */
+        Key retainedKey = new Key(details, new LabelConfig(labelConfig), rules);
+        /* Computed outside the lock, a concurrent caller may have added the set meanwhile */
+        Set<LabelAtom> computed = computeLabels(retainedKey.details, retainedKey.labelConfig, retainedKey.rules);
+        synchronized (labelSets) {
+            Set<LabelAtom> labels = labelSets.putIfAbsent(retainedKey, computed);
+            return labels != null ? labels : computed;
+        }
+    }
+
+    /* Package protected for tests */
+    int size() {
+        synchronized (labelSets) {
+            return labelSets.size();
+        }
+    }
+
+    @NonNull
+    private Set<LabelAtom> computeLabels(
+            @NonNull PlatformDetails details, @NonNull LabelConfig labelConfig, @NonNull LabelRules rules) {
+        Set<LabelAtom> result = new HashSet<>();
+        for (String name : labelNames(details, labelConfig, rules)) {
+            result.add(labelAtoms.apply(name));
+        }
+        return Set.copyOf(result);
+    }
+
+    /**
+     * Returns the names of the labels of the platform details, without creating label atoms.
+     *
+     * @param details platform details of a node
+     * @param labelConfig label configuration of the node
+     * @param rules label rules of the controller
+     * @return label names
+     */
+    @NonNull
+    static Set<String> labelNames(
+            @NonNull PlatformDetails details, @NonNull LabelConfig labelConfig, @NonNull LabelRules rules) {
+        PlatformDetails pp = rules.apply(details);
+        Set<String> result = new HashSet<>();
+
+        if (labelConfig.isArchitecture()) {
+            addLabel(result, pp.getArchitecture(), rules);
+        }
+
+        if (labelConfig.isName()) {
+            addLabel(result, pp.getName(), rules);
+        }
+
+        if (labelConfig.isVersion()) {
+            addLabel(result, pp.getVersion(), rules);
+        }
+
+        if (labelConfig.isNameVersion()) {
+            addLabel(result, pp.getNameVersion(), rules);
+        }
+
+        if (labelConfig.isArchitectureName()) {
+            addLabel(result, pp.getArchitectureName(), rules);
+        }
+
+        if (labelConfig.isArchitectureNameVersion()) {
+            addLabel(result, pp.getArchitectureNameVersion(), rules);
+        }
+
+        if (labelConfig.isWindowsFeatureUpdate()) {
+            addLabel(result, pp.getWindowsFeatureUpdate(), rules);
+        }
+
+        if (labelConfig.isOsName()) {
+            addLabel(result, pp.getOsName(), rules);
+        }
+
+        /* A container on a large host gets the tier of its limits, not the tier of the host */
+        if (labelConfig.isCpu()) {
+            addLabel(result, AgentCapacity.cpuLabel(pp.getEffectiveCpuCount()), rules);
+        }
+
+        if (labelConfig.isMemory()) {
+            addLabel(result, AgentCapacity.memoryLabel(pp.getEffectiveMemoryBytes()), rules);
+        }
+
+        if (labelConfig.isContainerLimits()) {
+            addLabel(result, AgentCapacity.cpuLimitLabel(pp.getCpuLimit()), rules);
+            addLabel(result, AgentCapacity.memoryLimitLabel(pp.getMemoryLimitBytes()), rules);
+        }
+
+        List<String> present = CpuFeatures.parse(pp.getCpuFeatures());
+        for (String feature : CpuFeatures.parse(labelConfig.getCpuFeatures())) {
+            if (present.contains(feature)) {
+                addLabel(result, CpuFeatures.label(feature), rules);
+            }
+        }
+
+        for (LabelTemplate template : labelConfig.getCompiledLabelTemplates()) {
+            addLabel(result, template.format(pp), rules);
+        }
+
+        return result;
+    }
+
+    private static void addLabel(@NonNull Set<String> result, @CheckForNull String label, @NonNull LabelRules rules) {
+        if (label != null && !rules.isSuppressed(label)) {
+            result.add(label);
+        }
+    }
+
+    /**
+     * Platform, capacity tiers, label configuration and label rules from which a label set is
+     * computed. Agents that differ only in their exact capacity share the key of their tiers.
+     */
+    private static final class Key {
+        private final PlatformDetails details;
+        private final List<String> capacityTiers;
+        private final LabelConfig labelConfig;
+        private final LabelRules rules;
+
+        Key(PlatformDetails details, LabelConfig labelConfig, LabelRules rules) {
+            this.details = details;
+            this.capacityTiers = details.getCapacityTiers();
+            this.labelConfig = labelConfig;
+            this.rules = rules;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key that)) {
+                return false;
+            }
+            return details.equals(that.details)
+                    && capacityTiers.equals(that.capacityTiers)
+                    && labelConfig.equals(that.labelConfig)
+                    && rules.equals(that.rules);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(details, capacityTiers, labelConfig, rules);
+        }
+    }
+}
@@ -47,7 +47,7 @@ public class PlatformLabeler extends LabelFinder {
      */
     @Override
     public final Collection<LabelAtom> findLabels(final Node node) {
-        Collection<LabelAtom> result = NodeLabelCache.nodeLabels.get(node);
+        Collection<LabelAtom> result = NodeLabelCache.nodeLabels.get(node.getNodeName());
         if (null == result) /* Node that has just attached and we don't have labels yet */ {
             return Collections.emptySet();
         }
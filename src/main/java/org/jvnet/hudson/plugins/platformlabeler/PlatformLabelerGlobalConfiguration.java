@@ -1,11 +1,18 @@
 package org.jvnet.hudson.plugins.platformlabeler;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Extension;
 import hudson.slaves.ComputerListener;
+import hudson.util.FormValidation;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import jenkins.model.GlobalConfiguration;
+import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
+import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.verb.POST;
 
 /**
  * Allows to configure which labels should be generated for the node when no node specific
@@ -14,8 +21,33 @@ import org.kohsuke.stapler.StaplerRequest2;
 @Extension
 public class PlatformLabelerGlobalConfiguration extends GlobalConfiguration {
 
+    /** Default number of probe threads in reconnect storm mode. */
+    static final int DEFAULT_PROBE_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /** Default window in milliseconds used to batch node saves, zero saves each node immediately. */
+    static final long DEFAULT_SAVE_BATCH_WINDOW_MILLIS = 0L;
+
+    /** Default time in milliseconds that an agent waits for its asynchronous probe before coming online. */
+    static final long DEFAULT_MAX_PROBE_WAIT_MILLIS = 0L;
+
     private LabelConfig labelConfig;
 
+    private boolean fastProbe = false;
+    private boolean asyncProbe = false;
+    private long maxProbeWaitMillis = DEFAULT_MAX_PROBE_WAIT_MILLIS;
+    private boolean reconnectStormMode = false;
+    private int probeThreads = DEFAULT_PROBE_THREADS;
+    private long saveBatchWindowMillis = DEFAULT_SAVE_BATCH_WINDOW_MILLIS;
+    private int maxCachedNodes = 0;
+    private boolean predictLabels = false;
+    private String predictionPattern = "";
+    private boolean majorVersionOnly = false;
+    private boolean normalizeArchitecture = false;
+    private boolean suppressPlaceholders = false;
+
+    /** Compiled {@link #predictionPattern}, null if it is empty or invalid. */
+    private transient volatile Pattern compiledPredictionPattern;
+
     /** Standard constructor. */
     @SuppressFBWarnings(
             value = "MC_OVERRIDABLE_METHOD_CALL_IN_CONSTRUCTOR",
@@ -26,6 +58,7 @@ public class PlatformLabelerGlobalConfiguration extends GlobalConfiguration {
         if (labelConfig == null) {
             labelConfig = new LabelConfig();
         }
+        compiledPredictionPattern = compile(predictionPattern);
     }
 
     @Override
@@ -48,4 +81,235 @@ public class PlatformLabelerGlobalConfiguration extends GlobalConfiguration {
         this.labelConfig = new LabelConfig(labelConfig);
         save();
     }
+
+    /**
+     * Returns true if Linux agents read their release details from release files and run
+     * lsb_release only when the files do not identify the distribution.
+     *
+     * @return true if the fast probe is enabled
+     */
+    public boolean isFastProbe() {
+        return fastProbe;
+    }
+
+    public void setFastProbe(boolean fastProbe) {
+        this.fastProbe = fastProbe;
+        save();
+    }
+
+    /**
+     * Returns true if agents come online without waiting for their platform probe to finish. Their
+     * platform labels are added when the probe finishes.
+     *
+     * @return true if agents are probed asynchronously
+     */
+    public boolean isAsyncProbe() {
+        return asyncProbe;
+    }
+
+    public void setAsyncProbe(boolean asyncProbe) {
+        this.asyncProbe = asyncProbe;
+        save();
+    }
+
+    /**
+     * Returns the time in milliseconds that a connecting agent waits for its asynchronous probe
+     * before coming online without platform labels. Zero does not wait.
+     *
+     * @return maximum wait for the asynchronous probe in milliseconds
+     */
+    public long getMaxProbeWaitMillis() {
+        return maxProbeWaitMillis;
+    }
+
+    public void setMaxProbeWaitMillis(long maxProbeWaitMillis) {
+        this.maxProbeWaitMillis = Math.max(0L, maxProbeWaitMillis);
+        save();
+    }
+
+    /**
+     * Returns true if connecting agents are probed on a bounded thread pool.
+     *
+     * @return true if reconnect storm mode is enabled
+     */
+    public boolean isReconnectStormMode() {
+        return reconnectStormMode;
+    }
+
+    public void setReconnectStormMode(boolean reconnectStormMode) {
+        this.reconnectStormMode = reconnectStormMode;
+        save();
+    }
+
+    /**
+     * Returns the maximum number of agents probed concurrently in reconnect storm mode.
+     *
+     * @return maximum number of concurrent probes
+     */
+    public int getProbeThreads() {
+        return probeThreads;
+    }
+
+    public void setProbeThreads(int probeThreads) {
+        this.probeThreads = Math.max(1, probeThreads);
+        save();
+    }
+
+    /**
+     * Returns the window in milliseconds within which node saves are batched.
+     *
+     * @return batch window in milliseconds
+     */
+    public long getSaveBatchWindowMillis() {
+        return saveBatchWindowMillis;
+    }
+
+    public void setSaveBatchWindowMillis(long saveBatchWindowMillis) {
+        this.saveBatchWindowMillis = Math.max(0L, saveBatchWindowMillis);
+        save();
+    }
+
+    /**
+     * Returns the maximum number of nodes whose platform details are cached, 0 for no limit. When
+     * the limit is exceeded the cached details of offline nodes are evicted, least recently
+     * probed first.
+     *
+     * @return maximum number of cached nodes, 0 for no limit
+     */
+    public int getMaxCachedNodes() {
+        return maxCachedNodes;
+    }
+
+    public void setMaxCachedNodes(int maxCachedNodes) {
+        this.maxCachedNodes = Math.max(0, maxCachedNodes);
+        save();
+    }
+
+    /**
+     * Returns true if version labels are reduced to the major version, like "12" instead of "12.7".
+     *
+     * @return true if only major versions are labeled
+     */
+    public boolean isMajorVersionOnly() {
+        return majorVersionOnly;
+    }
+
+    public void setMajorVersionOnly(boolean majorVersionOnly) {
+        this.majorVersionOnly = majorVersionOnly;
+        save();
+    }
+
+    /**
+     * Returns true if architecture aliases are labeled as one architecture, like "amd64" for
+     * "x86_64" and "aarch64" for "arm64".
+     *
+     * @return true if architectures are normalized
+     */
+    public boolean isNormalizeArchitecture() {
+        return normalizeArchitecture;
+    }
+
+    public void setNormalizeArchitecture(boolean normalizeArchitecture) {
+        this.normalizeArchitecture = normalizeArchitecture;
+        save();
+    }
+
+    /**
+     * Returns true if labels containing a value that the probe could not determine, like
+     * "unknown+check_lsb_release_installed", are omitted.
+     *
+     * @return true if placeholder labels are omitted
+     */
+    public boolean isSuppressPlaceholders() {
+        return suppressPlaceholders;
+    }
+
+    public void setSuppressPlaceholders(boolean suppressPlaceholders) {
+        this.suppressPlaceholders = suppressPlaceholders;
+        save();
+    }
+
+    /**
+     * Returns the label rules that collapse platform details into fewer distinct labels.
+     *
+     * @return label rules of the controller
+     */
+    LabelRules getLabelRules() {
+        return new LabelRules(majorVersionOnly, normalizeArchitecture, suppressPlaceholders);
+    }
+
+    /**
+     * Returns true if new nodes receive the platform labels last reported by a node of the same
+     * provisioning source until their own probe finishes.
+     *
+     * @return true if platform labels are predicted
+     */
+    public boolean isPredictLabels() {
+        return predictLabels;
+    }
+
+    public void setPredictLabels(boolean predictLabels) {
+        this.predictLabels = predictLabels;
+        save();
+    }
+
+    /**
+     * Returns the regular expression that identifies the provisioning source of a node from its
+     * name. The first group of the expression, or the whole match if it has no group, names the
+     * source. Empty to predict only for cloud agents, whose source is their name without the
+     * random suffix.
+     *
+     * @return node name pattern, empty if not set
+     */
+    public String getPredictionPattern() {
+        return predictionPattern;
+    }
+
+    public void setPredictionPattern(String predictionPattern) {
+        this.predictionPattern = predictionPattern == null ? "" : predictionPattern.trim();
+        this.compiledPredictionPattern = compile(this.predictionPattern);
+        save();
+    }
+
+    /**
+     * Returns the compiled prediction pattern.
+     *
+     * @return compiled node name pattern or null if none is set or it is invalid
+     */
+    @CheckForNull
+    Pattern getCompiledPredictionPattern() {
+        return compiledPredictionPattern;
+    }
+
+    /**
+     * Checks that the prediction pattern is a valid regular expression.
+     *
+     * @param value prediction pattern entered by the user
+     * @return validation result
+     */
+    @POST
+    public FormValidation doCheckPredictionPattern(@QueryParameter String value) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        if (value == null || value.isBlank()) {
+            return FormValidation.ok();
+        }
+        try {
+            Pattern.compile(value.trim());
+            return FormValidation.ok();
+        } catch (PatternSyntaxException e) {
+            return FormValidation.error(e.getDescription());
+        }
+    }
+
+    @CheckForNull
+    private static Pattern compile(@CheckForNull String pattern) {
+        if (pattern == null || pattern.isBlank()) {
+            return null;
+        }
+        try {
+            return Pattern.compile(pattern);
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
 }
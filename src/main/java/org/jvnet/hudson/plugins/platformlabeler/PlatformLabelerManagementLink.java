@@ -0,0 +1,337 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Api;
+import hudson.model.ManagementLink;
+import hudson.security.Permission;
+import hudson.slaves.ComputerListener;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+import org.kohsuke.stapler.verb.GET;
+
+/**
+ * Shows how long platform probes, label refreshes and node saves take, on a page of 'Manage
+ * Jenkins' and through the REST API at {@code manage/platformLabeler/api/json}. Metrics that
+ * visit every node are exported separately at {@code manage/platformLabeler/fleet/api/json}.
+ * Streams the platform inventory of all nodes at {@code manage/platformLabeler/inventory} and the
+ * nodes of a platform label at {@code manage/platformLabeler/labelNodes?label=<name>}.
+ */
+@Extension
+@ExportedBean
+public class PlatformLabelerManagementLink extends ManagementLink {
+
+    /** Fields of each inventory line that can be used as filters. */
+    private static final List<String> INVENTORY_FIELDS =
+            List.of("node", "name", "architecture", "version", "osName", "windowsFeatureUpdate");
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-analytics";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "platformLabeler";
+    }
+
+    @NonNull
+    @Override
+    public String getDisplayName() {
+        return Messages.Metrics_DisplayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.Metrics_Description();
+    }
+
+    @NonNull
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    @NonNull
+    @Override
+    public Permission getRequiredPermission() {
+        return Jenkins.SYSTEM_READ;
+    }
+
+    /**
+     * Returns the REST API of the metrics.
+     *
+     * @return REST API of the metrics
+     */
+    public Api getApi() {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        return new Api(this);
+    }
+
+    /** Timings of the probes, label refreshes and node saves run by the controller. */
+    @Exported(inline = true)
+    public List<Timing> getTimings() {
+        return ProbeMetrics.getTimings();
+    }
+
+    /**
+     * Returns the metrics that visit every node, so that scrapes of the main REST API do not pay
+     * for them.
+     *
+     * @return per agent metrics, label cardinality and cache memory estimate
+     */
+    public FleetMetrics getFleet() {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        return new FleetMetrics();
+    }
+
+    /**
+     * Number of nodes per platform field value, keyed by field (name, nameVersion, architecture,
+     * architectureNameVersion, osName), then by value. Select it alone with {@code
+     * api/json?tree=platforms}.
+     */
+    @Exported
+    public Map<String, Map<String, Long>> getPlatforms() {
+        return NodeLabelCache.getPlatformCounts();
+    }
+
+    /**
+     * Number of nodes of each platform label, keyed by label name. Select it alone with {@code
+     * api/json?tree=labels}.
+     */
+    @Exported
+    public Map<String, Integer> getLabels() {
+        return NodeLabelCache.getPlatformLabelCounts();
+    }
+
+    /**
+     * Writes the names and number of the nodes that carry a platform label as a JSON object.
+     * Answered from the platform label index, agents and node labels are not visited.
+     *
+     * @param label name of the platform label
+     * @param rsp response receiving the JSON object
+     * @throws IOException on I/O error
+     */
+    @GET
+    public void doLabelNodes(@QueryParameter(required = true) String label, StaplerResponse2 rsp)
+            throws IOException {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        Set<String> nodes = NodeLabelCache.getNodesWithPlatformLabel(label);
+        StringBuilder json = new StringBuilder();
+        json.append("{\"label\":").append(jsonString(label));
+        json.append(",\"count\":").append(nodes.size());
+        json.append(",\"nodes\":[");
+        json.append(nodes.stream().map(PlatformLabelerManagementLink::jsonString).collect(Collectors.joining(",")));
+        json.append("]}");
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().print(json);
+    }
+
+    /** Number of entries of each platform label cache, keyed by cache name. */
+    @Exported
+    public Map<String, Integer> getCacheSizes() {
+        return NodeLabelCache.getCacheSizes();
+    }
+
+    /** Number of nodes evicted from the platform label caches. */
+    @Exported
+    public long getEvictedCount() {
+        return NodeLabelCache.getEvictedCount();
+    }
+
+    /** Number of node label refreshes that computed labels. */
+    @Exported
+    public long getRefreshCount() {
+        return NodeLabelCache.getRefreshCount();
+    }
+
+    /** Number of node label refreshes skipped because their inputs were unchanged. */
+    @Exported
+    public long getSkippedRefreshCount() {
+        return NodeLabelCache.getSkippedRefreshCount();
+    }
+
+    /** Number of node saves skipped because the platform labels were unchanged. */
+    @Exported
+    public long getSkippedSaveCount() {
+        return NodeLabelCache.getSkippedSaveCount();
+    }
+
+    /** Number of new nodes labeled with platform details predicted from their provisioning source. */
+    @Exported
+    public long getPredictionCount() {
+        return NodeLabelCache.getPredictionCount();
+    }
+
+    /** Number of predicted platform details that matched the probe of the node. */
+    @Exported
+    public long getCorrectPredictionCount() {
+        return NodeLabelCache.getCorrectPredictionCount();
+    }
+
+    /** Number of predicted platform details that differed from the probe of the node. */
+    @Exported
+    public long getWrongPredictionCount() {
+        return NodeLabelCache.getWrongPredictionCount();
+    }
+
+    /**
+     * Streams the cached platform details of all nodes as JSON lines, one object per node sorted
+     * by node name. Query parameters named like the fields of the objects select the nodes whose
+     * field has that value, ignoring case. Answered from the label cache, agents are never
+     * contacted.
+     *
+     * @param req request with optional filter parameters
+     * @param rsp response receiving the JSON lines
+     * @throws IOException on I/O error
+     */
+    @GET
+    public void doInventory(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        Map<String, String> filters = new HashMap<>();
+        for (String field : INVENTORY_FIELDS) {
+            String value = req.getParameter(field);
+            if (value != null) {
+                filters.put(field, value);
+            }
+        }
+        Map<String, PlatformDetails> inventory = NodeLabelCache.getAllCachedPlatformDetails();
+        rsp.setContentType("application/x-ndjson;charset=UTF-8");
+        PrintWriter writer = rsp.getWriter();
+        for (String node : new TreeSet<>(inventory.keySet())) {
+            PlatformDetails details = inventory.get(node);
+            if (details == null) {
+                /* Removed while streaming */
+                continue;
+            }
+            Map<String, String> fields = inventoryFields(node, details);
+            if (matches(fields, filters)) {
+                StringBuilder line = new StringBuilder();
+                for (Map.Entry<String, String> field : fields.entrySet()) {
+                    line.append(line.isEmpty() ? '{' : ',');
+                    line.append(jsonString(field.getKey())).append(':').append(jsonString(field.getValue()));
+                }
+                line.append(",\"cpuCount\":").append(details.getCpuCount());
+                line.append(",\"memoryBytes\":").append(details.getMemoryBytes());
+                line.append(",\"cpuLimit\":").append(details.getCpuLimit());
+                line.append(",\"memoryLimitBytes\":").append(details.getMemoryLimitBytes());
+                line.append(",\"cpuFeatures\":").append(jsonString(details.getCpuFeatures()));
+                line.append(",\"lastProbe\":").append(NodeLabelCache.getProbeTime(node));
+                writer.println(line.append('}'));
+            }
+        }
+        writer.flush();
+    }
+
+    /* json-lib would turn strings like "[1]" or "null" into JSON values, quote them explicitly */
+    private static String jsonString(@CheckForNull String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                default -> {
+                    if (c < ' ') {
+                        quoted.append("\\u%04x".formatted((int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static Map<String, String> inventoryFields(String node, PlatformDetails details) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("node", node);
+        fields.put("name", details.getName());
+        fields.put("architecture", details.getArchitecture());
+        fields.put("version", details.getVersion());
+        fields.put("osName", details.getOsName());
+        fields.put("windowsFeatureUpdate", details.getWindowsFeatureUpdate());
+        return fields;
+    }
+
+    private static boolean matches(Map<String, String> fields, Map<String, String> filters) {
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            if (!filter.getValue().equalsIgnoreCase(fields.get(filter.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Fraction of OS version monitor checks that found the agent unchanged. */
+    @Exported
+    public double getFingerprintHitRatio() {
+        OsVersionNodeMonitor.DescriptorImpl monitor =
+                Jenkins.get().getDescriptorByType(OsVersionNodeMonitor.DescriptorImpl.class);
+        return monitor == null ? 0.0 : monitor.getFingerprintHitRatio();
+    }
+
+    /** Number of OS version monitor checks that failed or timed out. */
+    @Exported
+    public long getFingerprintFailureCount() {
+        OsVersionNodeMonitor.DescriptorImpl monitor =
+                Jenkins.get().getDescriptorByType(OsVersionNodeMonitor.DescriptorImpl.class);
+        return monitor == null ? 0L : monitor.getFingerprintFailureCount();
+    }
+
+    /**
+     * Metrics whose computation visits every node or agent, exported at {@code
+     * manage/platformLabeler/fleet/api/json}.
+     */
+    @ExportedBean
+    public static final class FleetMetrics {
+
+        /**
+         * Returns the REST API of the fleet metrics.
+         *
+         * @return REST API of the fleet metrics
+         */
+        public Api getApi() {
+            Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+            return new Api(this);
+        }
+
+        /** Last platform probe of each agent with the phase timings reported by the agent. */
+        @Exported(inline = true)
+        public List<AgentProbeMetrics> getAgents() {
+            return ProbeMetrics.getAgents();
+        }
+
+        /** Number of distinct platform labels of the cached nodes without and with the label rules. */
+        @Exported
+        public Map<String, Integer> getLabelCardinality() {
+            NodeLabelCache nlc = ComputerListener.all().get(NodeLabelCache.class);
+            return nlc == null ? Map.of() : nlc.getLabelCardinality();
+        }
+
+        /**
+         * Rough estimate of the memory retained by the platform label caches in bytes, computed
+         * from the entry counts with a fixed size per entry and the length of the cached strings.
+         */
+        @Exported
+        public long getRoughCacheBytesEstimate() {
+            return NodeLabelCache.estimateRetainedBytes();
+        }
+    }
+}
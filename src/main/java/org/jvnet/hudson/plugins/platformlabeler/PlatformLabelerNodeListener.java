@@ -0,0 +1,35 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Node;
+import hudson.slaves.ComputerListener;
+import jenkins.model.NodeListener;
+
+/**
+ * Removes cached platform details and labels when a node is deleted or renamed, and predicts the
+ * platform labels of new nodes.
+ */
+@Extension
+public class PlatformLabelerNodeListener extends NodeListener {
+
+    @Override
+    protected void onCreated(@NonNull Node node) {
+        NodeLabelCache nlc = ComputerListener.all().get(NodeLabelCache.class);
+        if (nlc != null) {
+            nlc.predictLabels(node);
+        }
+    }
+
+    @Override
+    protected void onDeleted(@NonNull Node node) {
+        NodeLabelCache.forget(node.getNodeName());
+    }
+
+    @Override
+    protected void onUpdated(@NonNull Node oldOne, @NonNull Node newOne) {
+        if (!oldOne.getNodeName().equals(newOne.getNodeName())) {
+            NodeLabelCache.forget(oldOne.getNodeName());
+        }
+    }
+}
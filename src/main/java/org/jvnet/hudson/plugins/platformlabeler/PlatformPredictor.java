@@ -0,0 +1,168 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Node;
+import hudson.slaves.AbstractCloudSlave;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Predicts the platform details of a new node from the details last reported by a node of the
+ * same provisioning source. Cloud agents provisioned from one template run the same image, so the
+ * labels of their predecessor are usually right before the first probe of a new agent finishes.
+ * Predictions are replaced by the probed details and counted as correct or wrong.
+ */
+final class PlatformPredictor {
+
+    /**
+     * Upper bound on the number of learned sources, reached only with a too specific pattern. The
+     * least recently used source is forgotten first.
+     */
+    static final int MAX_SOURCES = 1_000;
+
+    /** Random suffix that clouds append to the template name, like "-a1b2c" or "-0123456789". */
+    private static final Pattern CLOUD_SUFFIX = Pattern.compile("(.+)-[0-9a-z]+");
+
+    /** Platform details last reported by a node of each source, keyed by source, guarded by the map. */
+    private final Map<String, PlatformDetails> learned;
+    /** Predicted platform details of the nodes that have not been probed yet, keyed by node name. */
+    private final ConcurrentMap<String, PlatformDetails> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong predictionCount = new AtomicLong();
+    private final AtomicLong correctCount = new AtomicLong();
+    private final AtomicLong wrongCount = new AtomicLong();
+
+    /** Platform predictor constructor. */
+    PlatformPredictor() {
+        this(MAX_SOURCES);
+    }
+
+    /* Package protected for tests */
+    PlatformPredictor(int maxSources) {
+        this.learned = new LruMap<>(maxSources);
+    }
+
+    /**
+     * Returns the provisioning source of the node, or null if the node has none.
+     *
+     * @param node node whose source is returned
+     * @param pattern node name pattern whose first group, or whole match, names the source
+     * @return provisioning source of the node or null
+     */
+    @CheckForNull
+    static String sourceOf(@NonNull Node node, @CheckForNull Pattern pattern) {
+        return sourceOf(node.getClass().getName(), node.getNodeName(), node instanceof AbstractCloudSlave, pattern);
+    }
+
+    /* Package protected for tests */
+    @CheckForNull
+    static String sourceOf(
+            @NonNull String nodeType, @NonNull String nodeName, boolean cloud, @CheckForNull Pattern pattern) {
+        if (pattern != null) {
+            Matcher matcher = pattern.matcher(nodeName);
+            if (matcher.matches()) {
+                return nodeType + ":" + (matcher.groupCount() > 0 ? matcher.group(1) : matcher.group());
+            }
+        }
+        if (cloud) {
+            Matcher matcher = CLOUD_SUFFIX.matcher(nodeName);
+            if (matcher.matches()) {
+                return nodeType + ":" + matcher.group(1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Predicts the platform details of a node that has not been probed yet and remembers the
+     * prediction until the node is probed.
+     *
+     * @param nodeName name of the node
+     * @param source provisioning source of the node, or null if it has none
+     * @return predicted platform details or null if nothing was learned from the source
+     */
+    @CheckForNull
+    PlatformDetails predict(@NonNull String nodeName, @CheckForNull String source) {
+        if (source == null) {
+            return null;
+        }
+        PlatformDetails predicted;
+        synchronized (learned) {
+            predicted = learned.get(source);
+        }
+        if (predicted == null) {
+            return null;
+        }
+        pending.put(nodeName, predicted);
+        predictionCount.incrementAndGet();
+        return predicted;
+    }
+
+    /**
+     * Records the probed platform details of a node. Learns them for the source of the node and
+     * scores the prediction made for the node, if any.
+     *
+     * @param nodeName name of the node
+     * @param source provisioning source of the node, or null if it has none
+     * @param details probed platform details of the node
+     */
+    void learn(@NonNull String nodeName, @CheckForNull String source, @NonNull PlatformDetails details) {
+        PlatformDetails predicted = pending.remove(nodeName);
+        if (predicted != null) {
+            (predicted.hasSameLabels(details) ? correctCount : wrongCount).incrementAndGet();
+        }
+        if (source == null) {
+            return;
+        }
+        synchronized (learned) {
+            learned.put(source, details);
+        }
+    }
+
+    /**
+     * Forgets the prediction made for a node without scoring it.
+     *
+     * @param nodeName name of the node
+     * @return true if a prediction was pending for the node
+     */
+    boolean withdraw(@NonNull String nodeName) {
+        return pending.remove(nodeName) != null;
+    }
+
+    /**
+     * Returns true if the node carries predicted labels that no probe has confirmed yet.
+     *
+     * @param nodeName name of the node
+     * @return true if a prediction is pending for the node
+     */
+    boolean isPending(@NonNull String nodeName) {
+        return pending.containsKey(nodeName);
+    }
+
+    long getPredictionCount() {
+        return predictionCount.get();
+    }
+
+    long getCorrectCount() {
+        return correctCount.get();
+    }
+
+    long getWrongCount() {
+        return wrongCount.get();
+    }
+
+    int getSourceCount() {
+        synchronized (learned) {
+            return learned.size();
+        }
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,54 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of one probe of an agent: the agent fingerprint, the platform details computed with it
+ * and the timings of the probe phases, so that the controller needs a single agent call for all.
+ */
+final class PlatformProbe implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final PlatformFingerprint fingerprint;
+    private final PlatformDetails details;
+    private final ArrayList<Timing> timings;
+
+    /**
+     * Probe result constructor.
+     *
+     * @param fingerprint fingerprint of the agent
+     * @param details platform details of the agent, or null if the fingerprint was unchanged
+     * @param timings timings of the probe phases run on the agent
+     */
+    PlatformProbe(
+            @NonNull PlatformFingerprint fingerprint,
+            @CheckForNull PlatformDetails details,
+            @NonNull List<Timing> timings) {
+        this.fingerprint = fingerprint;
+        this.details = details;
+        this.timings = new ArrayList<>(timings);
+    }
+
+    @NonNull
+    PlatformFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    @CheckForNull
+    PlatformDetails getDetails() {
+        return details;
+    }
+
+    @NonNull
+    List<Timing> getTimings() {
+        return Collections.unmodifiableList(timings);
+    }
+}
@@ -0,0 +1,103 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import jenkins.security.ImpersonatingExecutorService;
+
+/**
+ * Bounded pool of controller threads that run platform probes. Used in reconnect storm mode so
+ * that hundreds of agents connecting at once do not all probe and refresh labels concurrently, and
+ * in asynchronous probe mode so that agents do not wait for their probe to come online.
+ */
+final class ProbeExecutor {
+
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+
+    ProbeExecutor(int threads) {
+        int size = Math.max(1, threads);
+        pool = new ThreadPoolExecutor(
+                size,
+                size,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "PlatformLabeler probe"));
+        /* Idle threads are released between reconnect storms */
+        pool.allowCoreThreadTimeOut(true);
+        executor = new ImpersonatingExecutorService(pool, ACL.SYSTEM2);
+    }
+
+    /**
+     * Run the task on the pool and wait for its result.
+     *
+     * @param task work to be run on a pool thread
+     * @param threads number of pool threads currently configured
+     * @return result of the task
+     * @throws IOException when the task failed
+     * @throws InterruptedException when interrupted while waiting for the task
+     */
+    <V> V call(Callable<V> task, int threads) throws IOException, InterruptedException {
+        Future<V> future = submit(task, threads);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioe) {
+                throw ioe;
+            }
+            if (cause instanceof InterruptedException ie) {
+                throw ie;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Run the task on the pool without waiting for its result.
+     *
+     * @param task work to be run on a pool thread
+     * @param threads number of pool threads currently configured
+     * @return future result of the task
+     */
+    <V> Future<V> submit(Callable<V> task, int threads) {
+        resize(threads);
+        return executor.submit(task);
+    }
+
+    /* Package protected for tests */
+    synchronized void resize(int threads) {
+        int size = Math.max(1, threads);
+        if (size == pool.getMaximumPoolSize()) {
+            return;
+        }
+        /* Core size may never exceed maximum size, order the updates accordingly */
+        if (size > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(size);
+            pool.setCorePoolSize(size);
+        } else {
+            pool.setCorePoolSize(size);
+            pool.setMaximumPoolSize(size);
+        }
+    }
+
+    /* Package protected for tests */
+    int getPoolSize() {
+        return pool.getMaximumPoolSize();
+    }
+}
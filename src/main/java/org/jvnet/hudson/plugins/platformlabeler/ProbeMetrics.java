@@ -0,0 +1,86 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/** Timings of platform probes and label refreshes kept by the controller. */
+final class ProbeMetrics {
+
+    /** Round trip of the platform probe of an agent. */
+    static final Timing PROBE = new Timing("probe");
+    /**
+     * Time that connecting agents waited for their asynchronous probe. Waits that reached the
+     * maximum wait before the probe finished are counted as timeouts.
+     */
+    static final Timing PROBE_WAIT = new Timing("probe wait");
+    /** Label refresh of one node. */
+    static final Timing REFRESH_MODEL = new Timing("refreshModel");
+    /** Label refresh of all nodes after a configuration change. */
+    static final Timing CONFIGURATION_CHANGE = new Timing("onConfigurationChange");
+    /** Save of one node with its platform labels. */
+    static final Timing UPDATE_NODE = new Timing("updateNode");
+
+    private static final ConcurrentMap<String, AgentProbeMetrics> AGENTS = new ConcurrentHashMap<>();
+
+    private ProbeMetrics() {
+        /* Static methods only */
+    }
+
+    /**
+     * Returns the controller timings.
+     *
+     * @return controller timings
+     */
+    @NonNull
+    static List<Timing> getTimings() {
+        return List.of(PROBE, PROBE_WAIT, REFRESH_MODEL, CONFIGURATION_CHANGE, UPDATE_NODE);
+    }
+
+    /**
+     * Records the round trip of a platform probe of an agent with the phase timings it reported.
+     *
+     * @param name name of the agent
+     * @param nanos round trip time of the probe in nanoseconds
+     * @param probe result of the probe
+     */
+    static void recordProbe(@NonNull String name, long nanos, @NonNull PlatformProbe probe) {
+        PROBE.record(nanos);
+        recordAgent(name, nanos, probe.getTimings());
+    }
+
+    /**
+     * Records the last platform probe of an agent.
+     *
+     * @param name name of the agent
+     * @param nanos round trip time of the probe in nanoseconds
+     * @param phases timings of the probe phases reported by the agent
+     */
+    static void recordAgent(@NonNull String name, long nanos, @NonNull List<Timing> phases) {
+        AGENTS.put(name, new AgentProbeMetrics(name, nanos, System.currentTimeMillis(), phases));
+    }
+
+    /**
+     * Returns the last platform probe of each agent, sorted by agent name.
+     *
+     * @return last platform probe of each agent
+     */
+    @NonNull
+    static List<AgentProbeMetrics> getAgents() {
+        List<AgentProbeMetrics> agents = new ArrayList<>(AGENTS.values());
+        agents.sort(Comparator.comparing(AgentProbeMetrics::getName));
+        return agents;
+    }
+
+    /**
+     * Forgets the probe of an agent that no longer exists.
+     *
+     * @param name name of the agent
+     */
+    static void forget(@NonNull String name) {
+        AGENTS.remove(name);
+    }
+}
@@ -0,0 +1,96 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Contents of a release file like /etc/os-release or /etc/lsb-release, read once. Lines of the
+ * form KEY=value are also available by key, with surrounding quotes removed from the value.
+ */
+final class ReleaseFile {
+
+    private static final Logger LOGGER = Logger.getLogger(ReleaseFile.class.getName());
+
+    private static final ReleaseFile MISSING = new ReleaseFile(false, List.of());
+
+    private final boolean exists;
+    private final List<String> lines;
+    private final Map<String, String> values = new HashMap<>();
+
+    private ReleaseFile(boolean exists, @NonNull List<String> lines) {
+        this.exists = exists;
+        this.lines = List.copyOf(lines);
+        for (String line : this.lines) {
+            int separator = line.indexOf('=');
+            if (separator > 0 && !line.startsWith("#")) {
+                String value = line.substring(separator + 1).replace("\"", "").replace("'", "");
+                values.put(line.substring(0, separator).trim(), value.trim());
+            }
+        }
+    }
+
+    /**
+     * Read the release file.
+     *
+     * @param file release file to be read, or null if there is none
+     * @return contents of the file, empty if the file is missing or unreadable
+     */
+    @NonNull
+    static ReleaseFile read(@CheckForNull File file) {
+        if (file == null || !file.isFile()) {
+            return MISSING;
+        }
+        Timing timing = AgentTimings.get(AgentTimings.FILE_READS);
+        long start = System.nanoTime();
+        try {
+            return new ReleaseFile(true, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            timing.recordFailure();
+            LOGGER.log(Level.FINEST, "Unable to read " + file, e);
+            return MISSING;
+        } finally {
+            timing.record(System.nanoTime() - start);
+        }
+    }
+
+    boolean exists() {
+        return exists;
+    }
+
+    @NonNull
+    List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns all KEY=value pairs of the file.
+     *
+     * @return unmodifiable map of values by key
+     */
+    @NonNull
+    Map<String, String> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Returns the value of the key, or null if the file does not assign the key. When the key is
+     * assigned more than once, the last assignment is returned.
+     *
+     * @param key name of the value, as in "ID" or "VERSION_ID"
+     * @return value of the key or null
+     */
+    @CheckForNull
+    String get(@NonNull String key) {
+        return values.get(key);
+    }
+}
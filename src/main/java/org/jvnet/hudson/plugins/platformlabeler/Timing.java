@@ -0,0 +1,118 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Duration, failure and timeout counters of one step of platform labeling, like a probe command
+ * on the agent or a node save on the controller.
+ */
+@ExportedBean(defaultVisibility = 3)
+public final class Timing implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    Timing(@NonNull String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one completed run of the step.
+     *
+     * @param nanos duration of the run in nanoseconds
+     */
+    void record(long nanos) {
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** Records a run of the step that failed. */
+    void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    /** Records a run of the step that did not finish within its deadline. */
+    void recordTimeout() {
+        timeouts.incrementAndGet();
+    }
+
+    /**
+     * Returns a copy of the current counters, used to send the counters of an agent to the
+     * controller.
+     *
+     * @return copy of the counters
+     */
+    @NonNull
+    Timing copy() {
+        Timing copy = new Timing(name);
+        copy.count.set(count.get());
+        copy.failures.set(failures.get());
+        copy.timeouts.set(timeouts.get());
+        copy.totalNanos.set(totalNanos.get());
+        copy.maxNanos.set(maxNanos.get());
+        return copy;
+    }
+
+    /** Name of the step. */
+    @Exported
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /** Number of recorded runs. */
+    @Exported
+    public long getCount() {
+        return count.get();
+    }
+
+    /** Number of runs that failed. */
+    @Exported
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /** Number of runs that did not finish within their deadline. */
+    @Exported
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /** Total duration of the recorded runs in milliseconds. */
+    @Exported
+    public long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos.get());
+    }
+
+    /** Duration of the longest recorded run in milliseconds. */
+    @Exported
+    public long getMaxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+    }
+
+    /** Average duration of the recorded runs in milliseconds. */
+    @Exported
+    public double getAverageMillis() {
+        long runs = count.get();
+        return runs == 0 ? 0.0 : (double) totalNanos.get() / runs / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + getCount() + " runs, " + getTotalMillis() + " ms";
+    }
+}
@@ -44,20 +44,19 @@ public class WindowsRelease implements PlatformDetailsRelease {
     public WindowsRelease() {
         Map<String, String> newProps = new HashMap<>();
         try {
-            Process process = new ProcessBuilder(
-                            "REG",
-                            "QUERY",
-                            "HKLM\\Software\\Microsoft\\Windows NT\\CurrentVersion",
-                            "/t",
-                            "REG_SZ",
-                            "/v",
-                            "ReleaseId")
-                    .start();
-            try (InputStream stream = process.getInputStream()) {
-                readWindowsReleaseOutput(stream, newProps);
-            }
+            CommandRunner.Result result = CommandRunner.run(
+                    "REG",
+                    "QUERY",
+                    "HKLM\\Software\\Microsoft\\Windows NT\\CurrentVersion",
+                    "/t",
+                    "REG_SZ",
+                    "/v",
+                    "ReleaseId");
+            readWindowsReleaseOutput(result.getOutput(), newProps);
         } catch (IOException ignored) {
             // IGNORE
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
         this.release = newProps.getOrDefault("ReleaseId", PlatformDetailsTask.UNKNOWN_WINDOWS_VALUE_STRING);
     }
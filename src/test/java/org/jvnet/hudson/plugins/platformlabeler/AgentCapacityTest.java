@@ -0,0 +1,70 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AgentCapacityTest {
+
+    private static final long GIB = 1024L * 1024L * 1024L;
+
+    @TempDir
+    private File tmpDir;
+
+    @Test
+    void testReadMemTotal() throws Exception {
+        File meminfo = new File(tmpDir, "meminfo");
+        Files.writeString(
+                meminfo,
+                "MemTotal:       65837480 kB\nMemFree:         1234567 kB\nMemAvailable:   40000000 kB\n",
+                StandardCharsets.US_ASCII);
+        assertThat(AgentCapacity.readMemTotal(meminfo), is(65837480L * 1024L));
+    }
+
+    @Test
+    void testReadMemTotalMissingOrMalformed() throws Exception {
+        assertThat(AgentCapacity.readMemTotal(new File(tmpDir, "missing")), is(0L));
+        File meminfo = new File(tmpDir, "meminfo");
+        Files.writeString(meminfo, "MemTotal: lots\n", StandardCharsets.US_ASCII);
+        assertThat(AgentCapacity.readMemTotal(meminfo), is(0L));
+    }
+
+    @Test
+    void testLocalCapacity() {
+        assertThat(AgentCapacity.cpuCount(), is(greaterThan(0)));
+        assertThat(AgentCapacity.memoryBytes(), is(greaterThan(0L)));
+    }
+
+    @Test
+    void testCpuLabel() {
+        assertThat(AgentCapacity.cpuLabel(1), is("cpu-1"));
+        assertThat(AgentCapacity.cpuLabel(32), is("cpu-32"));
+        assertThat(AgentCapacity.cpuLabel(48), is("cpu-32"));
+        assertThat(AgentCapacity.cpuLabel(0), is(nullValue()));
+    }
+
+    @Test
+    void testMemoryLabel() {
+        /* A 64 GiB machine that reports the memory left by firmware and kernel */
+        assertThat(AgentCapacity.memoryLabel(65837480L * 1024L), is("mem-64g"));
+        assertThat(AgentCapacity.memoryLabel(64 * GIB), is("mem-64g"));
+        assertThat(AgentCapacity.memoryLabel(48 * GIB), is("mem-32g"));
+        assertThat(AgentCapacity.memoryLabel(512L * 1024L * 1024L), is("mem-1g"));
+        assertThat(AgentCapacity.memoryLabel(0L), is(nullValue()));
+    }
+
+    @Test
+    void testLimitLabels() {
+        assertThat(AgentCapacity.cpuLimitLabel(6), is("cpu-limit-4"));
+        assertThat(AgentCapacity.cpuLimitLabel(0), is(nullValue()));
+        assertThat(AgentCapacity.memoryLimitLabel(8 * GIB), is("mem-limit-8g"));
+        assertThat(AgentCapacity.memoryLimitLabel(0L), is(nullValue()));
+    }
+}
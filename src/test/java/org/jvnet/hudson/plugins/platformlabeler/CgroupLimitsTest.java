@@ -0,0 +1,82 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CgroupLimitsTest {
+
+    private static final long GIB = 1024L * 1024L * 1024L;
+
+    @TempDir
+    private File tmpDir;
+
+    private File fixture(String name) throws Exception {
+        return new File(getClass().getResource("cgroup/" + name).toURI());
+    }
+
+    @Test
+    void testV2Limited() throws Exception {
+        CgroupLimits limits = CgroupLimits.read(fixture("v2-limited"), new File(tmpDir, "missing"));
+        assertThat(limits.getCpuLimit(), is(4));
+        assertThat(limits.getMemoryLimitBytes(), is(8 * GIB));
+    }
+
+    @Test
+    void testV2Unlimited() throws Exception {
+        CgroupLimits limits = CgroupLimits.read(fixture("v2-unlimited"), new File(tmpDir, "missing"));
+        assertThat(limits.getCpuLimit(), is(0));
+        assertThat(limits.getMemoryLimitBytes(), is(0L));
+    }
+
+    @Test
+    void testV1Limited() throws Exception {
+        CgroupLimits limits = CgroupLimits.read(fixture("v1-limited"), new File(tmpDir, "missing"));
+        /* A quota of 1.5 processors is rounded up */
+        assertThat(limits.getCpuLimit(), is(2));
+        assertThat(limits.getMemoryLimitBytes(), is(4 * GIB));
+    }
+
+    @Test
+    void testV1Unlimited() throws Exception {
+        CgroupLimits limits = CgroupLimits.read(fixture("v1-unlimited"), new File(tmpDir, "missing"));
+        assertThat(limits.getCpuLimit(), is(0));
+        assertThat(limits.getMemoryLimitBytes(), is(0L));
+    }
+
+    @Test
+    void testNoCgroupFileSystem() {
+        assertThat(
+                CgroupLimits.read(new File(tmpDir, "missing"), new File(tmpDir, "missing")),
+                is(sameInstance(CgroupLimits.NONE)));
+    }
+
+    @Test
+    void testV2GroupOfProcess() throws Exception {
+        File root = new File(tmpDir, "cgroup");
+        File group = new File(root, "system.slice/jenkins-agent.service");
+        Files.createDirectories(group.toPath());
+        Files.writeString(new File(root, "cgroup.controllers").toPath(), "cpu memory\n", StandardCharsets.US_ASCII);
+        Files.writeString(new File(group, "cpu.max").toPath(), "200000 100000\n", StandardCharsets.US_ASCII);
+        Files.writeString(new File(group, "memory.max").toPath(), "2147483648\n", StandardCharsets.US_ASCII);
+        File selfCgroup = new File(tmpDir, "self-cgroup");
+        Files.writeString(
+                selfCgroup.toPath(), "0::/system.slice/jenkins-agent.service\n", StandardCharsets.US_ASCII);
+        CgroupLimits limits = CgroupLimits.read(root, selfCgroup);
+        assertThat(limits.getCpuLimit(), is(2));
+        assertThat(limits.getMemoryLimitBytes(), is(2 * GIB));
+    }
+
+    @Test
+    void testLocalLimits() {
+        CgroupLimits limits = CgroupLimits.read();
+        assertThat(limits.getCpuLimit() >= 0, is(true));
+        assertThat(limits.getMemoryLimitBytes() >= 0L, is(true));
+    }
+}
@@ -0,0 +1,45 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import hudson.Functions;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ChangedPlatformDetailsTaskTest {
+
+    @Test
+    void testUnchangedFingerprintSkipsProbe() throws Exception {
+        if (Functions.isWindows()) {
+            /* Windows fingerprints are never reused */
+            return;
+        }
+        PlatformFingerprint current = new PlatformFingerprintTask().call();
+        PlatformProbe probe = new ChangedPlatformDetailsTask(current, false).call();
+        assertThat(probe.getDetails(), is(nullValue()));
+        assertThat(probe.getFingerprint(), is(current));
+    }
+
+    @Test
+    void testChangedFingerprintProbes() throws Exception {
+        PlatformFingerprint stale = new PlatformFingerprint(Map.of("os.version", "0.0"), true);
+        PlatformProbe probe = new ChangedPlatformDetailsTask(stale, false).call();
+        assertThat(probe.getDetails(), is(notNullValue()));
+        assertThat(probe.getDetails(), is(new PlatformDetailsTask().call()));
+        assertThat(probe.getFingerprint(), is(new PlatformFingerprintTask().call()));
+    }
+
+    @Test
+    void testUnknownFingerprintProbes() throws Exception {
+        PlatformProbe probe = new ChangedPlatformDetailsTask(null, false).call();
+        assertThat(probe.getDetails(), is(new PlatformDetailsTask().call()));
+        assertThat(probe.getFingerprint(), is(new PlatformFingerprintTask().call()));
+        /* Phase timings travel with the probe result */
+        assertThat(probe.getTimings(), is(not(empty())));
+    }
+}
@@ -0,0 +1,61 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import hudson.Functions;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class CommandRunnerTest {
+
+    @Test
+    void testOutput() throws Exception {
+        if (Functions.isWindows()) {
+            return;
+        }
+        CommandRunner.Result result = CommandRunner.run("sh", "-c", "echo hello; echo ignored >&2");
+        assertThat(result.getExitValue(), is(0));
+        assertThat(new String(result.getOutput().readAllBytes(), StandardCharsets.UTF_8), is("hello\n"));
+    }
+
+    @Test
+    void testLargeErrorOutputDoesNotBlock() throws Exception {
+        if (Functions.isWindows()) {
+            return;
+        }
+        /* Larger than the pipe buffer, would block the command if stderr were not drained */
+        CommandRunner.Result result =
+                CommandRunner.run(5000L, "sh", "-c", "head -c 1000000 /dev/zero >&2; echo done");
+        assertThat(new String(result.getOutput().readAllBytes(), StandardCharsets.UTF_8), is("done\n"));
+    }
+
+    @Test
+    void testTimeout() {
+        if (Functions.isWindows()) {
+            return;
+        }
+        long timeoutsBefore = timeouts("sleep");
+        long start = System.nanoTime();
+        IOException e = assertThrows(IOException.class, () -> CommandRunner.run(200L, "sleep", "30"));
+        assertThat(e.getMessage(), containsString("did not finish within 200 ms"));
+        assertThat((System.nanoTime() - start) / 1_000_000L, is(lessThan(10_000L)));
+        assertThat(timeouts("sleep"), is(timeoutsBefore + 1));
+    }
+
+    @Test
+    void testMissingCommand() {
+        assertThrows(IOException.class, () -> CommandRunner.run("/this/command/does/not/exist"));
+        Timing timing = AgentTimings.get("/this/command/does/not/exist");
+        assertThat(timing.getFailures(), is(greaterThanOrEqualTo(1L)));
+    }
+
+    private static long timeouts(String command) {
+        return AgentTimings.get(command).getTimeouts();
+    }
+}
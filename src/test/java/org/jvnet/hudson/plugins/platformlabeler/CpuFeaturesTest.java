@@ -0,0 +1,61 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CpuFeaturesTest {
+
+    @TempDir
+    private File tmpDir;
+
+    private File fixture(String name) throws Exception {
+        return new File(getClass().getResource("cpuinfo/" + name + "/cpuinfo").toURI());
+    }
+
+    @Test
+    void testReadIceLake() throws Exception {
+        assertThat(
+                CpuFeatures.read(fixture("icelake")),
+                is("aes avx avx2 avx512_vnni avx512bw avx512cd avx512dq avx512f avx512vl bmi2 fma sha_ni sse4_2 vaes"
+                        + " vpclmulqdq"));
+    }
+
+    @Test
+    void testReadHaswell() throws Exception {
+        assertThat(CpuFeatures.read(fixture("haswell")), is("aes avx avx2 bmi2 fma sse4_2"));
+    }
+
+    @Test
+    void testReadGraviton3() throws Exception {
+        assertThat(
+                CpuFeatures.read(fixture("graviton3")), is("aes asimd atomics bf16 crc32 i8mm pmull sha2 sha512 sve"));
+    }
+
+    @Test
+    void testReadMissingOrWithoutFlags() throws Exception {
+        assertThat(CpuFeatures.read(new File(tmpDir, "missing")), is(""));
+        File cpuinfo = new File(tmpDir, "cpuinfo");
+        Files.writeString(cpuinfo.toPath(), "processor\t: 0\nmodel name\t: unknown\n", StandardCharsets.US_ASCII);
+        assertThat(CpuFeatures.read(cpuinfo), is(""));
+    }
+
+    @Test
+    void testParse() {
+        assertThat(CpuFeatures.parse(" AVX2, avx512f  sve "), contains("avx2", "avx512f", "sve"));
+        assertThat(CpuFeatures.parse(""), is(empty()));
+        assertThat(CpuFeatures.parse(null), is(empty()));
+    }
+
+    @Test
+    void testLabel() {
+        assertThat(CpuFeatures.label("avx2"), is("cpu-avx2"));
+    }
+}
@@ -0,0 +1,194 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.reflections.Reflections;
+import org.reflections.scanners.Scanners;
+
+class FileReleaseTest {
+
+    private static final String UNKNOWN = PlatformDetailsTask.UNKNOWN_VALUE_STRING;
+
+    /*
+     * Images whose lsb_release names the distribution differently than their release files, with
+     * the labels reported by the fast probe
+     */
+    private static final Map<String, String> FAST_PROBE_DIFFERENCES = Map.of(
+            "almalinux/8.10", "amd64-Alma-8.10",
+            "debian/testing", "amd64-Debian-trixie",
+            "debian/unstable", "amd64-Debian-trixie");
+
+    @TempDir
+    private File tempDir;
+
+    private File resource(String name) throws Exception {
+        return new File(getClass().getResource(name).toURI());
+    }
+
+    static Stream<String> generateOsReleaseFileNames() {
+        String packageName = FileReleaseTest.class.getPackage().getName();
+        Reflections reflections = new Reflections(packageName, Scanners.Resources);
+        Set<String> fileNames = reflections.getResources(Pattern.compile("os-release"));
+        return fileNames.stream().map(fileName -> fileName.split(".platformlabeler.")[1]);
+    }
+
+    static Stream<String> generateLsbReleaseFileNames() {
+        String packageName = FileReleaseTest.class.getPackage().getName();
+        Reflections reflections = new Reflections(packageName, Scanners.Resources);
+        Set<String> fileNames = reflections.getResources(Pattern.compile(".*lsb_release-a"));
+        return fileNames.stream().map(fileName -> fileName.split(".platformlabeler.")[1]);
+    }
+
+    /* Release files next to the lsb_release output of the same image, null if the image has none */
+    private static File sibling(File lsbOutput, String name) {
+        File file = new File(lsbOutput.getParentFile(), name);
+        return file.isFile() ? file : null;
+    }
+
+    private static PlatformDetailsTask probeOf(File lsbOutput, boolean fastProbe) {
+        PlatformDetailsTask task = new PlatformDetailsTask(fastProbe);
+        task.setLsbReleaseFile(sibling(lsbOutput, "lsb-release"));
+        task.setOsReleaseFile(sibling(lsbOutput, "os-release"));
+        task.setRedhatRelease(sibling(lsbOutput, "redhat-release"));
+        task.setSuseRelease(sibling(lsbOutput, "SuSE-release"));
+        task.setDebianVersion(sibling(lsbOutput, "debian_version"));
+        return task;
+    }
+
+    @ParameterizedTest(name = "file: {0}")
+    @MethodSource("generateLsbReleaseFileNames")
+    void testFastProbeSameDetailsAsFullProbe(String lsbReleaseFileName) throws Exception {
+        File lsbOutput = resource(lsbReleaseFileName);
+        LsbRelease lsbRelease = new LsbRelease(lsbOutput);
+        PlatformDetails expected = probeOf(lsbOutput, false).computeLabels("amd64", "linux", "6.8.0", lsbRelease);
+        PlatformDetailsTask fastProbe = probeOf(lsbOutput, true);
+        PlatformDetailsRelease release = fastProbe.getLinuxRelease();
+        assertThat(release, is(instanceOf(FileRelease.class)));
+        PlatformDetails actual = fastProbe.computeLabels("amd64", "linux", "6.8.0", release);
+        String image = lsbReleaseFileName.substring(0, lsbReleaseFileName.lastIndexOf('/'));
+        if (FAST_PROBE_DIFFERENCES.containsKey(image)) {
+            assertThat(actual.getArchitectureNameVersion(), is(FAST_PROBE_DIFFERENCES.get(image)));
+            assertThat(actual, is(not(expected)));
+            return;
+        }
+        assertThat(actual.getName(), is(expected.getName()));
+        assertThat(actual.getVersion(), is(expected.getVersion()));
+        assertThat(actual.getArchitecture(), is(expected.getArchitecture()));
+        assertThat(actual, is(expected));
+    }
+
+    @Test
+    void testAlmaLinuxNamedByReleaseFiles() throws Exception {
+        FileRelease release = new FileRelease(
+                null, resource("almalinux/8.10/os-release"), resource("almalinux/8.10/redhat-release"), null);
+        /* lsb_release reports AlmaLinux, the release files and the full probe without lsb_release report Alma */
+        assertThat(release.distributorId(), is("Alma"));
+        assertThat(release.release(), is("8.10"));
+        assertThat(release.isComplete(), is(true));
+    }
+
+    @Test
+    void testDebianTestingReadsDebianVersion() throws Exception {
+        FileRelease release = new FileRelease(
+                null, resource("debian/testing/os-release"), null, resource("debian/testing/debian_version"));
+        /* lsb_release and apt-cache report testing, debian_version only names the codename */
+        assertThat(release.distributorId(), is("Debian"));
+        assertThat(release.release(), is("trixie"));
+        assertThat(release.isComplete(), is(true));
+    }
+
+    @ParameterizedTest(name = "file: {0}")
+    @MethodSource("generateOsReleaseFileNames")
+    void testSameDetailsAsReleaseFileFallback(String osReleaseFileName) throws Exception {
+        File osRelease = resource(osReleaseFileName);
+        File debianVersion = sibling(osRelease, "debian_version");
+        FileRelease fileRelease = new FileRelease(null, osRelease, null, debianVersion);
+        assertThat(fileRelease.isComplete(), is(true));
+        PlatformDetailsTask task = new PlatformDetailsTask();
+        task.setOsReleaseFile(osRelease);
+        task.setDebianVersion(debianVersion);
+        task.setRedhatRelease(null);
+        task.setSuseRelease(null);
+        PlatformDetails expected = task.computeLabels("amd64", "linux", "6.8.0", new LsbRelease(UNKNOWN, UNKNOWN));
+        assertThat(task.computeLabels("amd64", "linux", "6.8.0", fileRelease), is(expected));
+    }
+
+    @Test
+    void testOsRelease() throws Exception {
+        FileRelease release = new FileRelease(null, resource("ubuntu/24.04/os-release"), null, null);
+        assertThat(release.distributorId(), is("Ubuntu"));
+        assertThat(release.release(), is("24.04"));
+        assertThat(release.isComplete(), is(true));
+    }
+
+    @Test
+    void testOsReleasePreferredName() throws Exception {
+        File osRelease = resource("registry.access.redhat.com/ubi8/ubi/8.10/os-release");
+        FileRelease release = new FileRelease(null, osRelease, null, null);
+        assertThat(release.distributorId(), is("RedHatEnterprise"));
+        assertThat(release.release(), is("8.10"));
+    }
+
+    @Test
+    void testRedhatReleaseWithoutOsRelease() throws Exception {
+        File missing = new File(tempDir, "os-release");
+        FileRelease release = new FileRelease(null, missing, resource("rocky/9.8/redhat-release"), null);
+        assertThat(release.distributorId(), is("Rocky"));
+        assertThat(release.release(), is("9.8"));
+        assertThat(release.isComplete(), is(true));
+    }
+
+    @Test
+    void testLsbReleaseFileIsPreferred() throws Exception {
+        File lsbRelease = new File(tempDir, "lsb-release");
+        Files.writeString(
+                lsbRelease,
+                "DISTRIB_ID=LinuxMint\nDISTRIB_RELEASE=19.3\nDISTRIB_DESCRIPTION=\"Linux Mint 19.3 Tricia\"\n",
+                StandardCharsets.UTF_8);
+        FileRelease release = new FileRelease(lsbRelease, resource("ubuntu/22.04/os-release"), null, null);
+        assertThat(release.distributorId(), is("LinuxMint"));
+        assertThat(release.release(), is("19.3"));
+    }
+
+    @Test
+    void testDebianTestingWithoutDebianVersionIsIncomplete() throws Exception {
+        FileRelease release = new FileRelease(null, resource("debian/testing/os-release"), null, null);
+        assertThat(release.distributorId(), is("Debian"));
+        assertThat(release.release(), is(UNKNOWN));
+        assertThat(release.isComplete(), is(false));
+    }
+
+    @Test
+    void testMissingFilesAreIncomplete() {
+        FileRelease release = new FileRelease(null, new File(tempDir, "os-release"), null, null);
+        assertThat(release.distributorId(), is(UNKNOWN));
+        assertThat(release.release(), is(UNKNOWN));
+        assertThat(release.isComplete(), is(false));
+    }
+
+    @Test
+    void testFastProbeUsesReleaseFiles() throws Exception {
+        PlatformDetailsTask task = new PlatformDetailsTask(true);
+        task.setLsbReleaseFile(null);
+        task.setOsReleaseFile(resource("debian/12/os-release"));
+        task.setRedhatRelease(null);
+        PlatformDetailsRelease release = task.getLinuxRelease();
+        assertThat(release, is(instanceOf(FileRelease.class)));
+        assertThat(release.distributorId(), is("Debian"));
+        assertThat(release.release(), is("12"));
+    }
+}
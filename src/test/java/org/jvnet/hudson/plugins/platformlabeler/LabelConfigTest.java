@@ -2,6 +2,7 @@ package org.jvnet.hudson.plugins.platformlabeler;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 
 import java.util.Random;
 import org.junit.jupiter.api.BeforeEach;
@@ -60,6 +61,29 @@ class LabelConfigTest {
         assertThat(nullLabelConfig.isArchitectureNameVersion(), is(defaultConfig.isArchitectureNameVersion()));
     }
 
+    @Test
+    void testLabelTemplates() {
+        assertThat(defaultConfig.getLabelTemplates(), is(""));
+        defaultConfig.setLabelTemplates(" ${arch}-${name}-${majorVersion}\n");
+        assertThat(defaultConfig.getLabelTemplates(), is("${arch}-${name}-${majorVersion}"));
+        assertThat(defaultConfig.getCompiledLabelTemplates().size(), is(1));
+        LabelConfig copy = new LabelConfig(defaultConfig);
+        assertThat(copy, is(defaultConfig));
+        assertThat(copy.hashCode(), is(defaultConfig.hashCode()));
+        assertThat(copy, is(not(new LabelConfig())));
+    }
+
+    @Test
+    void testCpuFeatures() {
+        assertThat(defaultConfig.getCpuFeatures(), is(""));
+        defaultConfig.setCpuFeatures(" avx2 avx512f ");
+        assertThat(defaultConfig.getCpuFeatures(), is("avx2 avx512f"));
+        LabelConfig copy = new LabelConfig(defaultConfig);
+        assertThat(copy, is(defaultConfig));
+        assertThat(copy.hashCode(), is(defaultConfig.hashCode()));
+        assertThat(copy, is(not(new LabelConfig())));
+    }
+
     @Test
     void testIsArchitecture() {
         assertThat(defaultConfig.isArchitecture(), is(true));
@@ -155,4 +179,13 @@ class LabelConfigTest {
         defaultConfig.setOsName(!randomIsOsName);
         assertThat(defaultConfig.isOsName(), is(!randomIsOsName));
     }
+
+    @Test
+    void testEquals() {
+        LabelConfig copy = new LabelConfig(randomConfig);
+        assertThat(copy, is(randomConfig));
+        assertThat(copy.hashCode(), is(randomConfig.hashCode()));
+        copy.setOsName(!randomIsOsName);
+        assertThat(copy, is(not(randomConfig)));
+    }
 }
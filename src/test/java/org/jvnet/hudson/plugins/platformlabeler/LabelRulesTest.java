@@ -0,0 +1,58 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import org.junit.jupiter.api.Test;
+
+class LabelRulesTest {
+
+    private static final PlatformDetails DEBIAN = new PlatformDetails("Debian", "x86_64", "12.7", null, "Linux");
+    private static final PlatformDetails UNKNOWN = new PlatformDetails(
+            PlatformDetailsTask.UNKNOWN_VALUE_STRING, "arm64", PlatformDetailsTask.UNKNOWN_VALUE_STRING, null, "Linux");
+
+    @Test
+    void testNoRulesChangeNothing() {
+        assertThat(LabelRules.NONE.apply(DEBIAN), is(sameInstance(DEBIAN)));
+        assertThat(LabelRules.NONE.isSuppressed(PlatformDetailsTask.UNKNOWN_VALUE_STRING), is(false));
+    }
+
+    @Test
+    void testMajorVersionOnly() {
+        PlatformDetails details = new LabelRules(true, false, false).apply(DEBIAN);
+        assertThat(details.getVersion(), is("12"));
+        assertThat(details.getArchitectureNameVersion(), is("x86_64-Debian-12"));
+        PlatformDetails trixie = new PlatformDetails("Debian", "amd64", "trixie", null, "Linux");
+        assertThat(new LabelRules(true, false, false).apply(trixie), is(sameInstance(trixie)));
+    }
+
+    @Test
+    void testNormalizeArchitecture() {
+        LabelRules rules = new LabelRules(false, true, false);
+        assertThat(rules.apply(DEBIAN).getArchitecture(), is("amd64"));
+        assertThat(rules.apply(UNKNOWN).getArchitecture(), is("aarch64"));
+        PlatformDetails amd64 = new PlatformDetails("Debian", "amd64", "12", null, "Linux");
+        assertThat(rules.apply(amd64), is(sameInstance(amd64)));
+    }
+
+    @Test
+    void testSuppressPlaceholders() {
+        LabelRules rules = new LabelRules(false, false, true);
+        assertThat(rules.isSuppressed("aarch64-" + PlatformDetailsTask.UNKNOWN_VALUE_STRING), is(true));
+        assertThat(rules.isSuppressed(PlatformDetailsTask.UNKNOWN_WINDOWS_VALUE_STRING), is(true));
+        assertThat(rules.isSuppressed("aarch64"), is(false));
+        assertThat(
+                PlatformLabelSets.labelNames(UNKNOWN, new LabelConfig(), rules), containsInAnyOrder("arm64", "Linux"));
+    }
+
+    @Test
+    void testRulesCollapseLabels() {
+        LabelRules rules = new LabelRules(true, true, true);
+        PlatformDetails point = new PlatformDetails("Debian", "amd64", "12.8", null, "Linux");
+        assertThat(
+                PlatformLabelSets.labelNames(DEBIAN, new LabelConfig(), rules),
+                is(PlatformLabelSets.labelNames(point, new LabelConfig(), rules)));
+    }
+}
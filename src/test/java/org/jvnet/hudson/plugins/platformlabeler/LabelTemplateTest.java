@@ -0,0 +1,81 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class LabelTemplateTest {
+
+    private static final PlatformDetails ROCKY = new PlatformDetails("Rocky", "aarch64", "9.5", null, "Linux");
+    private static final PlatformDetails WINDOWS =
+            new PlatformDetails("windows", "amd64", "10.0", "22H2", "Windows 10");
+
+    @Test
+    void testVariablesAndLiterals() {
+        assertThat(LabelTemplate.compile("${arch}-${name}-${majorVersion}").format(ROCKY), is("aarch64-Rocky-9"));
+        assertThat(LabelTemplate.compile("os_${ name }").format(ROCKY), is("os_Rocky"));
+        assertThat(LabelTemplate.compile("${version}").format(ROCKY), is("9.5"));
+        assertThat(LabelTemplate.compile("${osName}").format(ROCKY), is("Linux"));
+        assertThat(LabelTemplate.compile("static").format(ROCKY), is("static"));
+    }
+
+    @Test
+    void testMissingValueFormatsNoLabel() {
+        LabelTemplate template = LabelTemplate.compile("${name}-${windowsFeatureUpdate}");
+        assertThat(template.format(ROCKY), is(nullValue()));
+        assertThat(template.format(WINDOWS), is("windows-22H2"));
+    }
+
+    @Test
+    void testMajorVersionWithoutDot() {
+        PlatformDetails debian = new PlatformDetails("Debian", "amd64", "12", null, "Linux");
+        assertThat(LabelTemplate.compile("${name}${majorVersion}").format(debian), is("Debian12"));
+    }
+
+    @Test
+    void testMajorVersionOfPlaceholder() {
+        PlatformDetails unknown =
+                new PlatformDetails("Linux", "amd64", PlatformDetailsTask.UNKNOWN_VALUE_STRING, null, "Linux");
+        assertThat(
+                LabelTemplate.compile("${majorVersion}").format(unknown), is(PlatformDetailsTask.UNKNOWN_VALUE_STRING));
+    }
+
+    @Test
+    void testWhitespaceInValuesIsReplaced() {
+        PlatformDetails server = new PlatformDetails("windows", "amd64", "10.0", "21H2", " Windows  Server\t2022 ");
+        assertThat(LabelTemplate.compile("${arch}-${osName}").format(server), is("amd64-Windows_Server_2022"));
+        PlatformDetails blank = new PlatformDetails("windows", "amd64", "10.0", "21H2", " ");
+        assertThat(LabelTemplate.compile("${osName}").format(blank), is(nullValue()));
+    }
+
+    @Test
+    void testInvalidTemplates() {
+        assertThrows(IllegalArgumentException.class, () -> LabelTemplate.compile("${kernel}"));
+        assertThrows(IllegalArgumentException.class, () -> LabelTemplate.compile("${arch"));
+        assertThrows(IllegalArgumentException.class, () -> LabelTemplate.compile("  "));
+    }
+
+    @Test
+    void testWhitespaceInLiteralText() {
+        assertThrows(IllegalArgumentException.class, () -> LabelTemplate.compile("${arch} ${name}"));
+        assertThrows(IllegalArgumentException.class, () -> LabelTemplate.compile("${name}\tlinux"));
+        assertThat(LabelTemplate.compile(" ${arch}-${name} ").format(ROCKY), is("aarch64-Rocky"));
+        assertThat(LabelTemplate.compileAll("${arch} ${name}\n${name}"), hasSize(1));
+    }
+
+    @Test
+    void testCompileAllSkipsBlankAndInvalidLines() {
+        assertThat(
+                LabelTemplate.compileAll("${arch}-${name}\n\n${kernel}\r\n${name}-${majorVersion}").stream()
+                        .map(t -> t.format(ROCKY))
+                        .toList(),
+                contains("aarch64-Rocky", "Rocky-9"));
+        assertThat(LabelTemplate.compileAll(null), is(empty()));
+    }
+}
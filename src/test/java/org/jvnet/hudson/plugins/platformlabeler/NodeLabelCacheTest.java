@@ -4,9 +4,13 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.in;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -19,6 +23,8 @@ import hudson.model.TopLevelItem;
 import hudson.model.labels.LabelAtom;
 import hudson.remoting.Callable;
 import hudson.remoting.VirtualChannel;
+import hudson.slaves.DumbSlave;
+import hudson.slaves.JNLPLauncher;
 import hudson.slaves.NodeDescriptor;
 import hudson.slaves.NodeProperty;
 import hudson.slaves.NodePropertyDescriptor;
@@ -32,11 +38,13 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
+import jenkins.model.GlobalConfiguration;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -96,6 +104,94 @@ class NodeLabelCacheTest {
         nodeLabelCache.refreshModel(computer);
     }
 
+    @Test
+    void testRefreshModelSkipsUnchangedNode() throws Exception {
+        nodeLabelCache.cacheAndRefreshModel(computer, computer.getChannel());
+        long refreshed = NodeLabelCache.getRefreshCount();
+        long skipped = NodeLabelCache.getSkippedRefreshCount();
+        nodeLabelCache.refreshModel(computer);
+        assertThat(NodeLabelCache.getRefreshCount(), is(refreshed));
+        assertThat(NodeLabelCache.getSkippedRefreshCount(), is(skipped + 1));
+    }
+
+    @Test
+    void testRefreshModelAfterLabelConfigChange() throws Exception {
+        nodeLabelCache.cacheAndRefreshModel(computer, computer.getChannel());
+        long refreshed = NodeLabelCache.getRefreshCount();
+        PlatformLabelerNodeProperty nodeProperty = new PlatformLabelerNodeProperty();
+        LabelConfig labelConfig = new LabelConfig();
+        labelConfig.setArchitecture(false);
+        nodeProperty.setLabelConfig(labelConfig);
+        r.jenkins.getNodeProperties().add(nodeProperty);
+        nodeLabelCache.refreshModel(computer);
+        assertThat(NodeLabelCache.getRefreshCount(), is(refreshed + 1));
+        r.jenkins.getNodeProperties().remove(nodeProperty);
+        nodeLabelCache.refreshModel(computer);
+    }
+
+    @Test
+    void testSaveNodeSkipsUnchangedLabels() throws Exception {
+        Computer agentComputer = r.createOnlineSlave().toComputer();
+        nodeLabelCache.cacheAndRefreshModel(agentComputer, agentComputer.getChannel());
+        nodeLabelCache.saveNode(agentComputer, 0L);
+        long skipped = NodeLabelCache.getSkippedSaveCount();
+        nodeLabelCache.saveNode(agentComputer, 0L);
+        assertThat(NodeLabelCache.getSkippedSaveCount(), is(skipped + 1));
+    }
+
+    @Test
+    void testEvictForgetsRemovedNodes() {
+        NodeLabelCache.cachePlatformDetails("removed-agent", localDetails);
+        PlatformDetailsStore.get()
+                .put("removed-agent", new PlatformFingerprint(Map.of("os.name", "Linux"), true), localDetails);
+        assertThat(NodeLabelCache.getCacheSizes().get("storedDetails"), is(greaterThan(0)));
+        long evictedBefore = NodeLabelCache.getEvictedCount();
+        NodeLabelCache.evict(0);
+        assertThat(NodeLabelCache.getCachedPlatformDetails("removed-agent"), is(nullValue()));
+        assertThat(PlatformDetailsStore.get().getFingerprint("removed-agent"), is(nullValue()));
+        assertThat(NodeLabelCache.getEvictedCount(), is(evictedBefore + 1));
+    }
+
+    @Test
+    void testEvictLimitKeepsOnlineNodes() throws Exception {
+        nodeLabelCache.cacheLabels(computer, computer.getChannel());
+        for (String name : List.of("offline-a", "offline-b")) {
+            File remoteFs = new File(r.jenkins.getRootDir(), name);
+            r.jenkins.addNode(new DumbSlave(name, remoteFs.getPath(), new JNLPLauncher()));
+            NodeLabelCache.cachePlatformDetails(name, localDetails);
+            /* Connecting nodes are never evicted, wait until the inbound launcher gives up */
+            Computer offline = r.jenkins.getComputer(name);
+            for (int i = 0; i < 600 && offline.isConnecting(); i++) {
+                Thread.sleep(100);
+            }
+        }
+        int cached = NodeLabelCache.getCacheSizes().get("platformDetails");
+        assertThat(NodeLabelCache.evict(1), is(cached - 1));
+        assertThat(NodeLabelCache.getCachedPlatformDetails("offline-a"), is(nullValue()));
+        assertThat(NodeLabelCache.getCachedPlatformDetails("offline-b"), is(nullValue()));
+        assertThat(NodeLabelCache.getCachedPlatformDetails(computer.getName()), is(notNullValue()));
+        assertThat(NodeLabelCache.estimateRetainedBytes(), is(greaterThan(0L)));
+    }
+
+    @Test
+    void testUpdatePlatformDetailsRefreshesOnlyOnChange() throws Exception {
+        nodeLabelCache.cacheAndRefreshModel(computer, computer.getChannel());
+        PlatformDetails probed = NodeLabelCache.getCachedPlatformDetails(computer.getName());
+        long refreshed = NodeLabelCache.getRefreshCount();
+        nodeLabelCache.updatePlatformDetails(computer, probed);
+        assertThat(NodeLabelCache.getRefreshCount(), is(refreshed));
+        PlatformDetails upgraded = new PlatformDetails(
+                localDetails.getName(),
+                localDetails.getArchitecture(),
+                "upgraded-version",
+                localDetails.getWindowsFeatureUpdate(),
+                localDetails.getOsName());
+        nodeLabelCache.updatePlatformDetails(computer, upgraded);
+        assertThat(NodeLabelCache.getRefreshCount(), is(refreshed + 1));
+        assertThat(computer.getNode().getAssignedLabels(), hasItem(new LabelAtom("upgraded-version")));
+        nodeLabelCache.updatePlatformDetails(computer, probed);
+    }
+
     @Test
     void testRefreshModelNullComputer() {
         nodeLabelCache.refreshModel(null);
@@ -222,6 +318,97 @@ class NodeLabelCacheTest {
                 startsWith("Ignored platform detail collection failure for '" + name + "' during preOnline phase."));
     }
 
+    @Test
+    void testPreOnline_ReconnectStormModeLogsDetailCollectionIgnoredOnInternalException() throws Exception {
+        PlatformLabelerGlobalConfiguration globalConfig =
+                GlobalConfiguration.all().getInstance(PlatformLabelerGlobalConfiguration.class);
+        globalConfig.setReconnectStormMode(true);
+        globalConfig.setProbeThreads(2);
+
+        // Setup a recorder for agent log
+        RingBufferLogHandler agentLogHandler = new RingBufferLogHandler(10);
+        Logger agentLogger = Logger.getLogger(NodeLabelCacheTest.class.getName());
+        agentLogger.addHandler(agentLogHandler);
+        TaskListener agentListener = new LogTaskListener(agentLogger, Level.INFO);
+
+        Computer minimal = new MinimalComputer(computer.getNode());
+        String name = minimal.getName();
+        nodeLabelCache.preOnline(minimal, null, new FilePath(new File(".")), agentListener);
+
+        assertThat(
+                agentLogHandler.getView().getFirst().getMessage(),
+                startsWith("Ignored platform detail collection failure for '" + name + "' during preOnline phase."));
+    }
+
+    @Test
+    void testPreOnline_AsyncProbeLogsDetailCollectionIgnoredOnInternalException() throws Exception {
+        PlatformLabelerGlobalConfiguration globalConfig =
+                GlobalConfiguration.all().getInstance(PlatformLabelerGlobalConfiguration.class);
+        globalConfig.setAsyncProbe(true);
+        globalConfig.setMaxProbeWaitMillis(60_000L);
+
+        // Setup a recorder for agent log
+        RingBufferLogHandler agentLogHandler = new RingBufferLogHandler(10);
+        Logger agentLogger = Logger.getLogger(NodeLabelCacheTest.class.getName());
+        agentLogger.addHandler(agentLogHandler);
+        TaskListener agentListener = new LogTaskListener(agentLogger, Level.INFO);
+
+        Computer minimal = new MinimalComputer(computer.getNode());
+        String name = minimal.getName();
+        nodeLabelCache.preOnline(minimal, null, new FilePath(new File(".")), agentListener);
+
+        assertThat(
+                agentLogHandler.getView().getFirst().getMessage(),
+                startsWith("Ignored platform detail collection failure for '" + name + "' during asynchronous probe."));
+        assertThat(NodeLabelCache.isProbePending(name), is(false));
+    }
+
+    @Test
+    void testAsyncProbeAddsLabelsAfterAgentIsOnline() throws Exception {
+        PlatformLabelerGlobalConfiguration globalConfig =
+                GlobalConfiguration.all().getInstance(PlatformLabelerGlobalConfiguration.class);
+        globalConfig.setAsyncProbe(true);
+
+        Node agent = r.createOnlineSlave();
+        String name = agent.getNodeName();
+        for (int i = 0; i < 600 && NodeLabelCache.isProbePending(name); i++) {
+            Thread.sleep(100L);
+        }
+        assertThat(NodeLabelCache.isProbePending(name), is(false));
+        assertThat(agent.toComputer().getNode().getAssignedLabels(), hasItem(new LabelAtom(localDetails.getName())));
+    }
+
+    @Test
+    void testPredictLabelsOfNewNode() throws Exception {
+        PlatformLabelerGlobalConfiguration globalConfig =
+                GlobalConfiguration.all().getInstance(PlatformLabelerGlobalConfiguration.class);
+        globalConfig.setPredictLabels(true);
+        globalConfig.setPredictionPattern("(slave)\\d+");
+
+        Node probed = r.createOnlineSlave();
+        long predictionsBefore = NodeLabelCache.getPredictionCount();
+        File remoteFs = new File(r.jenkins.getRootDir(), "slave999");
+        r.jenkins.addNode(new DumbSlave("slave999", remoteFs.getPath(), new JNLPLauncher()));
+
+        assertThat(NodeLabelCache.getPredictionCount(), is(predictionsBefore + 1));
+        assertThat(
+                NodeLabelCache.nodeLabels.get("slave999"), is(NodeLabelCache.nodeLabels.get(probed.getNodeName())));
+        assertThat(r.jenkins.getNode("slave999").getAssignedLabels(), hasItem(new LabelAtom(localDetails.getName())));
+    }
+
+    @Test
+    void testNoPredictionWithoutSource() throws Exception {
+        PlatformLabelerGlobalConfiguration globalConfig =
+                GlobalConfiguration.all().getInstance(PlatformLabelerGlobalConfiguration.class);
+        globalConfig.setPredictLabels(true);
+
+        r.createOnlineSlave();
+        File remoteFs = new File(r.jenkins.getRootDir(), "static-agent");
+        r.jenkins.addNode(new DumbSlave("static-agent", remoteFs.getPath(), new JNLPLauncher()));
+
+        assertThat(NodeLabelCache.nodeLabels.get("static-agent"), is(nullValue()));
+    }
+
     /** A minimal Computer class for preOnline test. */
     private class MinimalComputer extends Computer {
         public MinimalComputer(Node node) {
@@ -0,0 +1,58 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import hudson.model.Node;
+import hudson.slaves.DumbSlave;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class NodeSaveQueueTest {
+
+    private JenkinsRule r;
+
+    private List<Node> saved;
+    private NodeSaveQueue queue;
+
+    @BeforeEach
+    void setUp(JenkinsRule r) {
+        this.r = r;
+        saved = new CopyOnWriteArrayList<>();
+        queue = new NodeSaveQueue(saved::add);
+    }
+
+    @Test
+    void testSaveWithoutWindowIsImmediate() {
+        queue.save(r.jenkins, 0);
+        assertThat(saved, contains(r.jenkins));
+        assertThat(queue.getPendingCount(), is(0));
+    }
+
+    @Test
+    void testSaveWithinWindowIsCoalesced() throws Exception {
+        DumbSlave agent = r.createSlave();
+        long window = 60_000L; // Long enough that only the explicit flush saves
+        queue.save(agent, window);
+        queue.save(r.jenkins, window);
+        queue.save(agent, window);
+        assertThat(saved, is(empty()));
+        assertThat(queue.getPendingCount(), is(2));
+        queue.flush();
+        assertThat(saved, contains(agent, r.jenkins));
+        assertThat(queue.getPendingCount(), is(0));
+    }
+
+    @Test
+    void testFlushWithoutPendingNodes() {
+        queue.flush();
+        assertThat(saved, is(empty()));
+    }
+}
@@ -0,0 +1,84 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import hudson.model.Computer;
+import hudson.model.labels.LabelAtom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class OsVersionNodeMonitorTest {
+
+    private Computer computer;
+    private NodeLabelCache nodeLabelCache;
+    private OsVersionNodeMonitor.DescriptorImpl descriptor;
+
+    @BeforeEach
+    void setUp(JenkinsRule r) {
+        computer = r.jenkins.toComputer();
+        nodeLabelCache = new NodeLabelCache();
+        descriptor = r.jenkins.getDescriptorByType(OsVersionNodeMonitor.DescriptorImpl.class);
+    }
+
+    @Test
+    void testGetReturnsConnectTimeDetails() throws Exception {
+        nodeLabelCache.cacheLabels(computer, computer.getChannel());
+        PlatformDetails details = descriptor.get(computer);
+        assertThat(details, is(notNullValue()));
+        assertThat(details, is(NodeLabelCache.getCachedPlatformDetails(computer.getName())));
+    }
+
+    @Test
+    void testConnectTimeDetailsAreFirstSample() throws Exception {
+        nodeLabelCache.cacheLabels(computer, computer.getChannel());
+        assertThat(descriptor.createProbe(computer), is(nullValue()));
+        assertThat(descriptor.createProbe(computer), is(notNullValue()));
+    }
+
+    @Test
+    void testFingerprintCheckAfterConnectSample() throws Exception {
+        nodeLabelCache.cacheLabels(computer, computer.getChannel());
+        assertThat(NodeLabelCache.getCachedFingerprint(computer.getName()), is(notNullValue()));
+        assertThat(descriptor.createProbe(computer), is(nullValue()));
+        assertThat(descriptor.createProbe(computer).isFingerprintCheck(), is(true));
+    }
+
+    @Test
+    void testTriggerUpdateUpdatesLabelsOfChangedDetails() throws Exception {
+        String name = computer.getName();
+        NodeLabelCache.forget(name);
+        PlatformDetails stale = new PlatformDetails("stale-os", "stale-arch", "0.1", null, "stale");
+        NodeLabelCache.cachePlatformDetails(name, stale);
+        nodeLabelCache.refreshModel(computer);
+        assertThat(computer.getNode().getAssignedLabels(), hasItem(new LabelAtom("stale-os")));
+
+        new OsVersionNodeMonitor().triggerUpdate().join();
+        /* The fingerprint is recorded after the changed details */
+        for (int i = 0; i < 600 && NodeLabelCache.getCachedFingerprint(name) == null; i++) {
+            Thread.sleep(100L);
+        }
+        assertThat(NodeLabelCache.getCachedFingerprint(name), is(notNullValue()));
+        assertThat(NodeLabelCache.getCachedPlatformDetails(name), is(not(stale)));
+        assertThat(computer.getNode().getAssignedLabels(), not(hasItem(new LabelAtom("stale-os"))));
+
+        /* The next cycle only checks the fingerprint of the agent */
+        long checks = descriptor.getFingerprintCheckCount();
+        new OsVersionNodeMonitor().triggerUpdate().join();
+        for (int i = 0; i < 600 && descriptor.getFingerprintCheckCount() == checks; i++) {
+            Thread.sleep(100L);
+        }
+        assertThat(descriptor.getFingerprintCheckCount(), is(greaterThan(checks)));
+        /* Only checks that returned count, the unchanged agent is a hit */
+        assertThat(descriptor.getFingerprintHitRatio(), is(greaterThan(0.0)));
+        assertThat(descriptor.getFingerprintFailureCount(), is(0L));
+    }
+}
@@ -0,0 +1,59 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import org.junit.jupiter.api.Test;
+
+class PlatformAggregatesTest {
+
+    private static final PlatformDetails ROCKY_ARM = new PlatformDetails("Rocky", "aarch64", "9.5", null, "Linux");
+    private static final PlatformDetails ROCKY_AMD = new PlatformDetails("Rocky", "amd64", "9.5", null, "Linux");
+    private static final PlatformDetails ROCKY_NEXT = new PlatformDetails("Rocky", "aarch64", "9.6", null, "Linux");
+
+    private final PlatformAggregates aggregates = new PlatformAggregates();
+
+    @Test
+    void testAddedNodesAreCounted() {
+        aggregates.replace(null, ROCKY_ARM);
+        aggregates.replace(null, ROCKY_AMD);
+        assertThat(aggregates.count("name", "Rocky"), is(2L));
+        assertThat(aggregates.count("nameVersion", "Rocky-9.5"), is(2L));
+        assertThat(aggregates.count("architecture", "aarch64"), is(1L));
+        assertThat(aggregates.count("architectureNameVersion", "aarch64-Rocky-9.5"), is(1L));
+        assertThat(aggregates.count("osName", "Linux"), is(2L));
+    }
+
+    @Test
+    void testReplacedNodeMoves() {
+        aggregates.replace(null, ROCKY_ARM);
+        aggregates.replace(ROCKY_ARM, ROCKY_NEXT);
+        assertThat(aggregates.count("nameVersion", "Rocky-9.5"), is(0L));
+        assertThat(aggregates.count("nameVersion", "Rocky-9.6"), is(1L));
+        assertThat(aggregates.count("name", "Rocky"), is(1L));
+        assertThat(aggregates.snapshot().get("nameVersion"), not(hasKey("Rocky-9.5")));
+    }
+
+    @Test
+    void testUnchangedNodeIsCountedOnce() {
+        aggregates.replace(null, ROCKY_ARM);
+        aggregates.replace(ROCKY_ARM, ROCKY_ARM);
+        assertThat(aggregates.count("name", "Rocky"), is(1L));
+    }
+
+    @Test
+    void testRemovedNodeIsNotCounted() {
+        aggregates.replace(null, ROCKY_ARM);
+        aggregates.replace(ROCKY_ARM, null);
+        assertThat(aggregates.count("name", "Rocky"), is(0L));
+        assertThat(aggregates.snapshot().get("name"), not(hasKey("Rocky")));
+    }
+
+    @Test
+    void testUnknownField() {
+        aggregates.replace(null, ROCKY_ARM);
+        assertThat(aggregates.count("kernel", "6.8"), is(0L));
+    }
+}
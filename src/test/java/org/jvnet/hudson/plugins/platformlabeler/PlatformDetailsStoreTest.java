@@ -0,0 +1,81 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PlatformDetailsStoreTest {
+
+    @TempDir
+    private File tempDir;
+
+    private File storeFile;
+    private PlatformFingerprint fingerprint;
+    private PlatformDetails details;
+
+    @BeforeEach
+    void setUp() {
+        storeFile = new File(tempDir, "store.xml");
+        fingerprint = new PlatformFingerprint(Map.of("os.name", "Linux", "os.version", "6.8.0"), true);
+        details = new PlatformDetails("Ubuntu", "amd64", "24.04", null, "Linux");
+    }
+
+    @Test
+    void testLookupMatchingFingerprint() {
+        PlatformDetailsStore store = new PlatformDetailsStore(storeFile);
+        store.put("agent-1", fingerprint, details);
+        assertThat(store.lookup("agent-1", fingerprint), is(details));
+    }
+
+    @Test
+    void testLookupChangedFingerprint() {
+        PlatformDetailsStore store = new PlatformDetailsStore(storeFile);
+        store.put("agent-1", fingerprint, details);
+        PlatformFingerprint upgraded =
+                new PlatformFingerprint(Map.of("os.name", "Linux", "os.version", "6.9.0"), true);
+        assertThat(store.lookup("agent-1", upgraded), is(nullValue()));
+        assertThat(store.lookup("agent-2", fingerprint), is(nullValue()));
+        assertThat(store.lookup("agent-1", null), is(nullValue()));
+    }
+
+    @Test
+    void testGetFingerprint() {
+        PlatformDetailsStore store = new PlatformDetailsStore(storeFile);
+        store.put("agent-1", fingerprint, details);
+        assertThat(store.getFingerprint("agent-1"), is(fingerprint));
+        assertThat(store.getFingerprint("agent-2"), is(nullValue()));
+    }
+
+    @Test
+    void testNotReusableFingerprintIsNotStored() {
+        PlatformDetailsStore store = new PlatformDetailsStore(storeFile);
+        store.put("windows-agent", new PlatformFingerprint(Map.of("os.name", "Windows 11"), false), details);
+        assertThat(store.size(), is(0));
+    }
+
+    @Test
+    void testSaveAndLoad() {
+        PlatformDetailsStore store = new PlatformDetailsStore(storeFile);
+        store.put("agent-1", fingerprint, details);
+        store.save();
+
+        PlatformDetailsStore loaded = new PlatformDetailsStore(storeFile);
+        loaded.load();
+        assertThat(loaded.size(), is(1));
+        assertThat(loaded.lookup("agent-1", fingerprint), is(details));
+    }
+
+    @Test
+    void testRemove() {
+        PlatformDetailsStore store = new PlatformDetailsStore(storeFile);
+        store.put("agent-1", fingerprint, details);
+        store.remove("agent-1");
+        assertThat(store.lookup("agent-1", fingerprint), is(nullValue()));
+    }
+}
@@ -2,6 +2,7 @@ package org.jvnet.hudson.plugins.platformlabeler;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 
@@ -50,6 +51,10 @@ class PlatformDetailsTaskTest {
             assertThat(details.getName(), is(not("windows")));
         }
         assertPlatformDetails(details);
+        assertThat(details.getCpuCount(), is(Runtime.getRuntime().availableProcessors()));
+        assertThat(details.getMemoryBytes(), is(greaterThan(0L)));
+        assertThat(details.getCpuLimit(), is(CgroupLimits.read().getCpuLimit()));
+        assertThat(details.getCpuFeatures(), is(CpuFeatures.read()));
     }
 
     private void assertPlatformDetails(PlatformDetails details) {
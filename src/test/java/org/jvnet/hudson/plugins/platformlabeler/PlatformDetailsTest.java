@@ -25,6 +25,7 @@ package org.jvnet.hudson.plugins.platformlabeler;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 
 import java.util.Random;
@@ -149,6 +150,26 @@ class PlatformDetailsTest {
         assertThat(detailsWithoutOsName.getOsName(), is(nullValue()));
     }
 
+    @Test
+    void testEquals() {
+        PlatformDetails same = new PlatformDetails(name, arch, version, windowsFeatureUpdate, osName);
+        assertThat(details, is(same));
+        assertThat(details.hashCode(), is(same.hashCode()));
+        PlatformDetails other = new PlatformDetails(name, arch, version + ".1", windowsFeatureUpdate, osName);
+        assertThat(details, is(not(other)));
+    }
+
+    @Test
+    void testHasSameLabels() {
+        PlatformDetails capacity = details.withCapacity(48, 64L << 30);
+        PlatformDetails sameTier = details.withCapacity(40, 63L << 30);
+        assertThat(capacity, is(sameTier));
+        assertThat(capacity.hashCode(), is(sameTier.hashCode()));
+        assertThat(capacity.hasSameLabels(sameTier), is(true));
+        assertThat(capacity.hasSameLabels(details.withCapacity(64, 64L << 30)), is(false));
+        assertThat(capacity.hasSameLabels(null), is(false));
+    }
+
     private static final Random random = new Random();
 
     private static final String[] names = {
@@ -0,0 +1,100 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PlatformFingerprintTaskTest {
+
+    private final PlatformFingerprintTask task = new PlatformFingerprintTask();
+
+    @TempDir
+    private File tmpDir;
+
+    private String resourcePath(String name) throws Exception {
+        return new File(getClass().getResource(name).toURI()).getPath();
+    }
+
+    @Test
+    void testSameReleaseFileMatches() throws Exception {
+        String osRelease = resourcePath("ubuntu/24.04/os-release");
+        PlatformFingerprint first = task.computeFingerprint("amd64", "Linux", "6.8.0", osRelease);
+        PlatformFingerprint second = task.computeFingerprint("amd64", "Linux", "6.8.0", osRelease);
+        assertThat(first.matches(second), is(true));
+        assertThat(first, is(second));
+        assertThat(first.getComponents(), hasKey(osRelease));
+    }
+
+    @Test
+    void testDifferentReleaseFileDoesNotMatch() throws Exception {
+        PlatformFingerprint noble =
+                task.computeFingerprint("amd64", "Linux", "6.8.0", resourcePath("ubuntu/24.04/os-release"));
+        PlatformFingerprint bookworm =
+                task.computeFingerprint("amd64", "Linux", "6.8.0", resourcePath("debian/12/os-release"));
+        assertThat(noble.matches(bookworm), is(false));
+    }
+
+    @Test
+    void testDifferentKernelDoesNotMatch() throws Exception {
+        String osRelease = resourcePath("debian/12/os-release");
+        PlatformFingerprint before = task.computeFingerprint("amd64", "Linux", "6.1.0-17", osRelease);
+        PlatformFingerprint after = task.computeFingerprint("amd64", "Linux", "6.1.0-18", osRelease);
+        assertThat(before.matches(after), is(false));
+    }
+
+    @Test
+    void testMissingReleaseFileIsIgnored() {
+        String missing = "/this/file/does/not/exist-release";
+        PlatformFingerprint fingerprint = task.computeFingerprint("amd64", "Linux", "6.8.0", missing);
+        assertThat(fingerprint.getComponents(), not(hasKey(missing)));
+    }
+
+    @Test
+    void testWindowsIsNotReusable() {
+        PlatformFingerprint first = task.computeFingerprint("amd64", "Windows 11", "10.0");
+        PlatformFingerprint second = task.computeFingerprint("amd64", "Windows 11", "10.0");
+        assertThat(first.isReusable(), is(false));
+        assertThat(first.matches(second), is(false));
+    }
+
+    @Test
+    void testDifferentBootIdDoesNotMatch() throws Exception {
+        File bootId = new File(tmpDir, "boot_id");
+        Files.writeString(bootId.toPath(), "6f1c2a3e-0d4b-4f7a-9a51-2c3d4e5f6a7b\n", StandardCharsets.US_ASCII);
+        task.setBootIdFile(bootId.getPath());
+        PlatformFingerprint before = task.computeFingerprint("amd64", "Linux", "6.8.0");
+        assertThat(before.getComponents().get("boot_id"), is("6f1c2a3e-0d4b-4f7a-9a51-2c3d4e5f6a7b"));
+        Files.writeString(bootId.toPath(), "0b9e8d7c-6a5f-4e3d-8c2b-1a0f9e8d7c6b\n", StandardCharsets.US_ASCII);
+        PlatformFingerprint after = task.computeFingerprint("amd64", "Linux", "6.8.0");
+        assertThat(before.matches(after), is(false));
+    }
+
+    @Test
+    void testMissingBootIdIsIgnored() {
+        task.setBootIdFile(new File(tmpDir, "missing").getPath());
+        PlatformFingerprint fingerprint = task.computeFingerprint("amd64", "Linux", "6.8.0");
+        assertThat(fingerprint.getComponents(), not(hasKey("boot_id")));
+    }
+
+    @Test
+    void testDifferentCpuFeaturesDoNotMatch() throws Exception {
+        File cpuinfo = new File(tmpDir, "cpuinfo");
+        Files.writeString(cpuinfo.toPath(), "flags\t\t: fpu sse4_2 avx avx2\n", StandardCharsets.US_ASCII);
+        task.setCpuinfoFile(cpuinfo.getPath());
+        PlatformFingerprint before = task.computeFingerprint("amd64", "Linux", "6.8.0");
+        assertThat(before.getComponents(), hasKey("cpu.features"));
+        /* Extensions that are never labeled do not change the fingerprint */
+        Files.writeString(cpuinfo.toPath(), "flags\t\t: fpu vme sse4_2 avx avx2\n", StandardCharsets.US_ASCII);
+        assertThat(task.computeFingerprint("amd64", "Linux", "6.8.0").matches(before), is(true));
+        Files.writeString(cpuinfo.toPath(), "flags\t\t: fpu sse4_2 avx\n", StandardCharsets.US_ASCII);
+        PlatformFingerprint after = task.computeFingerprint("amd64", "Linux", "6.8.0");
+        assertThat(before.matches(after), is(false));
+    }
+}
@@ -0,0 +1,49 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import hudson.model.labels.LabelAtom;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PlatformLabelIndexTest {
+
+    private static final LabelAtom AMD64 = new LabelAtom("amd64");
+    private static final LabelAtom AARCH64 = new LabelAtom("aarch64");
+    private static final LabelAtom ROCKY = new LabelAtom("Rocky");
+
+    private final PlatformLabelIndex index = new PlatformLabelIndex();
+
+    @Test
+    void testNodesAreIndexedByLabel() {
+        index.replace("agent-2", null, Set.of(AMD64, ROCKY));
+        index.replace("agent-1", null, Set.of(AARCH64, ROCKY));
+        assertThat(index.getNodes("Rocky"), contains("agent-1", "agent-2"));
+        assertThat(index.getNodes("amd64"), contains("agent-2"));
+        assertThat(index.count("Rocky"), is(2));
+        assertThat(index.count("Debian"), is(0));
+        assertThat(index.getNodes("Debian"), is(empty()));
+    }
+
+    @Test
+    void testReplacedLabelsMoveNode() {
+        index.replace("agent-1", null, Set.of(AMD64, ROCKY));
+        index.replace("agent-1", Set.of(AMD64, ROCKY), Set.of(AARCH64, ROCKY));
+        assertThat(index.getNodes("aarch64"), contains("agent-1"));
+        assertThat(index.getNodes("Rocky"), contains("agent-1"));
+        assertThat(index.counts(), not(hasKey("amd64")));
+    }
+
+    @Test
+    void testRemovedNodeIsNotIndexed() {
+        index.replace("agent-1", null, Set.of(AMD64));
+        index.replace("agent-1", Set.of(AMD64), null);
+        assertThat(index.getNodes("amd64"), is(empty()));
+        assertThat(index.counts(), not(hasKey("amd64")));
+    }
+}
@@ -0,0 +1,162 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import hudson.model.labels.LabelAtom;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PlatformLabelSetsTest {
+
+    private final PlatformLabelSets labelSets = new PlatformLabelSets(LabelAtom::new);
+
+    @Test
+    void testLabelsForDefaultConfig() {
+        PlatformDetails details = new PlatformDetails("Ubuntu", "amd64", "24.04", null, "Linux");
+        Set<LabelAtom> labels = labelSets.get(details, new LabelConfig());
+        assertThat(
+                labels,
+                containsInAnyOrder(
+                        new LabelAtom("Ubuntu"),
+                        new LabelAtom("amd64"),
+                        new LabelAtom("24.04"),
+                        new LabelAtom("Ubuntu-24.04"),
+                        new LabelAtom("amd64-Ubuntu"),
+                        new LabelAtom("amd64-Ubuntu-24.04"),
+                        new LabelAtom("Linux")));
+        assertThrows(UnsupportedOperationException.class, () -> labels.add(new LabelAtom("extra")));
+    }
+
+    @Test
+    void testLabelTemplates() {
+        PlatformDetails details = new PlatformDetails("Rocky", "aarch64", "9.5", null, "Linux");
+        LabelConfig labelConfig = new LabelConfig();
+        labelConfig.setLabelTemplates("${arch}-${name}-${majorVersion}\n${name}-${windowsFeatureUpdate}");
+        Set<LabelAtom> labels = labelSets.get(details, labelConfig);
+        assertThat(labels, hasItem(new LabelAtom("aarch64-Rocky-9")));
+        assertThat(labels, not(hasItem(new LabelAtom("Rocky-"))));
+        assertThat(labels, is(not(labelSets.get(details, new LabelConfig()))));
+    }
+
+    @Test
+    void testLabelRulesDoNotShareLabelSet() {
+        PlatformDetails details = new PlatformDetails("Debian", "x86_64", "12.7", null, "Linux");
+        Set<LabelAtom> labels = labelSets.get(details, new LabelConfig());
+        Set<LabelAtom> collapsed = labelSets.get(details, new LabelConfig(), new LabelRules(true, true, false));
+        assertThat(labels, hasItem(new LabelAtom("x86_64-Debian-12.7")));
+        assertThat(collapsed, hasItem(new LabelAtom("amd64-Debian-12")));
+        assertThat(collapsed, not(hasItem(new LabelAtom("12.7"))));
+        assertThat(labelSets.size(), is(2));
+    }
+
+    @Test
+    void testCapacityLabels() {
+        PlatformDetails details =
+                new PlatformDetails("Rocky", "aarch64", "9.5", null, "Linux").withCapacity(48, 64L << 30);
+        assertThat(labelSets.get(details, new LabelConfig()), not(hasItem(new LabelAtom("cpu-32"))));
+        LabelConfig labelConfig = new LabelConfig();
+        labelConfig.setCpu(true);
+        labelConfig.setMemory(true);
+        Set<LabelAtom> labels = labelSets.get(details, labelConfig);
+        assertThat(labels, hasItem(new LabelAtom("cpu-32")));
+        assertThat(labels, hasItem(new LabelAtom("mem-64g")));
+    }
+
+    @Test
+    void testContainerLimitLabels() {
+        PlatformDetails details = new PlatformDetails("Rocky", "aarch64", "9.5", null, "Linux")
+                .withCapacity(64, 256L << 30)
+                .withLimits(4, 8L << 30);
+        LabelConfig labelConfig = new LabelConfig();
+        labelConfig.setCpu(true);
+        labelConfig.setMemory(true);
+        Set<LabelAtom> labels = labelSets.get(details, labelConfig);
+        /* Tiers of the container, not of the host */
+        assertThat(labels, hasItem(new LabelAtom("cpu-4")));
+        assertThat(labels, hasItem(new LabelAtom("mem-8g")));
+        assertThat(labels, not(hasItem(new LabelAtom("cpu-limit-4"))));
+        labelConfig.setContainerLimits(true);
+        labels = labelSets.get(details, labelConfig);
+        assertThat(labels, hasItem(new LabelAtom("cpu-limit-4")));
+        assertThat(labels, hasItem(new LabelAtom("mem-limit-8g")));
+    }
+
+    @Test
+    void testCpuFeatureLabels() {
+        PlatformDetails details = new PlatformDetails("Ubuntu", "amd64", "24.04", null, "Linux")
+                .withCpuFeatures("avx avx2 fma sse4_2");
+        assertThat(labelSets.get(details, new LabelConfig()), not(hasItem(new LabelAtom("cpu-avx2"))));
+        LabelConfig labelConfig = new LabelConfig();
+        labelConfig.setCpuFeatures("avx2, avx512f");
+        Set<LabelAtom> labels = labelSets.get(details, labelConfig);
+        assertThat(labels, hasItem(new LabelAtom("cpu-avx2")));
+        /* Only listed extensions the agent supports */
+        assertThat(labels, not(hasItem(new LabelAtom("cpu-avx512f"))));
+        assertThat(labels, not(hasItem(new LabelAtom("cpu-fma"))));
+    }
+
+    @Test
+    void testEqualDetailsShareLabelSet() {
+        Set<LabelAtom> first =
+                labelSets.get(new PlatformDetails("Debian", "amd64", "12", null, "Linux"), new LabelConfig());
+        Set<LabelAtom> second =
+                labelSets.get(new PlatformDetails("Debian", "amd64", "12", null, "Linux"), new LabelConfig());
+        assertThat(second, is(sameInstance(first)));
+        assertThat(labelSets.size(), is(1));
+    }
+
+    @Test
+    void testSameCapacityTierSharesLabelSet() {
+        LabelConfig labelConfig = new LabelConfig();
+        labelConfig.setCpu(true);
+        PlatformDetails details = new PlatformDetails("Debian", "amd64", "12", null, "Linux");
+        Set<LabelAtom> first = labelSets.get(details.withCapacity(48, 64L << 30), labelConfig);
+        Set<LabelAtom> second = labelSets.get(details.withCapacity(40, 63L << 30), labelConfig);
+        assertThat(second, is(sameInstance(first)));
+        Set<LabelAtom> larger = labelSets.get(details.withCapacity(64, 64L << 30), labelConfig);
+        assertThat(larger, hasItem(new LabelAtom("cpu-64")));
+        assertThat(labelSets.size(), is(2));
+    }
+
+    @Test
+    void testFullCacheDropsLeastRecentlyUsedSet() {
+        PlatformLabelSets bounded = new PlatformLabelSets(LabelAtom::new, 2);
+        PlatformDetails debian = new PlatformDetails("Debian", "amd64", "12", null, "Linux");
+        PlatformDetails ubuntu = new PlatformDetails("Ubuntu", "amd64", "24.04", null, "Linux");
+        Set<LabelAtom> first = bounded.get(debian, new LabelConfig());
+        Set<LabelAtom> unused = bounded.get(ubuntu, new LabelConfig());
+        assertThat(bounded.get(debian, new LabelConfig()), is(sameInstance(first)));
+        bounded.get(new PlatformDetails("Rocky", "aarch64", "9.5", null, "Linux"), new LabelConfig());
+        assertThat(bounded.size(), is(2));
+        /* The recently used set stays shared, the other one is computed again */
+        assertThat(bounded.get(debian, new LabelConfig()), is(sameInstance(first)));
+        assertThat(bounded.get(ubuntu, new LabelConfig()), is(not(sameInstance(unused))));
+    }
+
+    @Test
+    void testDifferentLabelConfigDoesNotShareLabelSet() {
+        PlatformDetails details = new PlatformDetails("Debian", "amd64", "12", null, "Linux");
+        LabelConfig labelConfig = new LabelConfig();
+        Set<LabelAtom> all = labelSets.get(details, labelConfig);
+        labelConfig.setArchitectureNameVersion(false);
+        Set<LabelAtom> fewer = labelSets.get(details, labelConfig);
+        assertThat(fewer, is(not(all)));
+        assertThat(fewer, not(hasItem(new LabelAtom("amd64-Debian-12"))));
+        assertThat(labelSets.size(), is(2));
+    }
+
+    @Test
+    void testLaterLabelConfigChangeDoesNotAlterCachedSet() {
+        PlatformDetails details = new PlatformDetails("Debian", "amd64", "12", null, "Linux");
+        LabelConfig labelConfig = new LabelConfig();
+        Set<LabelAtom> all = labelSets.get(details, labelConfig);
+        labelConfig.setName(false);
+        assertThat(labelSets.get(details, new LabelConfig()), is(sameInstance(all)));
+    }
+}
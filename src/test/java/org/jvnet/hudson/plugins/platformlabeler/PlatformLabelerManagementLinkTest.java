@@ -0,0 +1,145 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+import hudson.model.Computer;
+import java.util.List;
+import jenkins.model.GlobalConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class PlatformLabelerManagementLinkTest {
+
+    private JenkinsRule r;
+    private Computer computer;
+
+    @BeforeEach
+    void setUp(JenkinsRule r) throws Exception {
+        this.r = r;
+        computer = r.jenkins.toComputer();
+        new NodeLabelCache().requestComputerPlatformDetails(computer, computer.getChannel());
+    }
+
+    @Test
+    void testProbeIsRecorded() {
+        PlatformLabelerManagementLink link = r.jenkins
+                .getExtensionList(PlatformLabelerManagementLink.class)
+                .get(0);
+        Timing probe = link.getTimings().stream()
+                .filter(timing -> timing.getName().equals("probe"))
+                .findFirst()
+                .orElse(null);
+        assertThat(probe, is(not(nullValue())));
+        assertThat(probe.getCount(), is(greaterThan(0L)));
+        List<String> agents =
+                link.getFleet().getAgents().stream().map(AgentProbeMetrics::getName).toList();
+        assertThat(agents, hasItem(computer.getName()));
+    }
+
+    @Test
+    void testLabelCardinality() {
+        PlatformLabelerManagementLink link = r.jenkins
+                .getExtensionList(PlatformLabelerManagementLink.class)
+                .get(0);
+        int withoutRules = link.getFleet().getLabelCardinality().get("withoutRules");
+        assertThat(withoutRules, is(greaterThan(0)));
+        PlatformLabelerGlobalConfiguration globalConfig =
+                GlobalConfiguration.all().getInstance(PlatformLabelerGlobalConfiguration.class);
+        globalConfig.setMajorVersionOnly(true);
+        assertThat(link.getFleet().getLabelCardinality().get("withRules"), is(lessThanOrEqualTo(withoutRules)));
+    }
+
+    @Test
+    void testRestApi() throws Exception {
+        String json = r.createWebClient()
+                .goTo("manage/platformLabeler/api/json?depth=1", "application/json")
+                .getWebResponse()
+                .getContentAsString();
+        assertThat(json, containsString("\"timings\""));
+        assertThat(json, containsString("\"refreshModel\""));
+        /* Metrics that visit every node are only exported by the fleet API */
+        assertThat(json, not(containsString("\"agents\"")));
+        assertThat(json, not(containsString("\"labelCardinality\"")));
+        String fleet = r.createWebClient()
+                .goTo("manage/platformLabeler/fleet/api/json?depth=1", "application/json")
+                .getWebResponse()
+                .getContentAsString();
+        assertThat(fleet, containsString("\"agents\""));
+        assertThat(fleet, containsString("\"labelCardinality\""));
+        assertThat(fleet, containsString("\"roughCacheBytesEstimate\""));
+    }
+
+    @Test
+    void testPage() throws Exception {
+        String page = r.createWebClient()
+                .goTo("manage/platformLabeler/")
+                .getWebResponse()
+                .getContentAsString();
+        assertThat(page, containsString("updateNode"));
+    }
+
+    @Test
+    void testInventoryFilter() throws Exception {
+        NodeLabelCache.cachePlatformDetails(
+                "inventory-noble", new PlatformDetails("Ubuntu", "amd64", "24.04", null, "Linux"));
+        NodeLabelCache.cachePlatformDetails(
+                "inventory-bookworm", new PlatformDetails("Debian", "aarch64", "12", null, "Linux"));
+        try {
+            String all = inventory("");
+            assertThat(all, containsString("\"node\":\"inventory-noble\""));
+            assertThat(all, containsString("\"node\":\"inventory-bookworm\""));
+            String debian = inventory("?name=debian&architecture=aarch64");
+            assertThat(debian, containsString("\"node\":\"inventory-bookworm\""));
+            assertThat(debian, containsString("\"version\":\"12\""));
+            assertThat(debian, not(containsString("inventory-noble")));
+        } finally {
+            NodeLabelCache.forget("inventory-noble");
+            NodeLabelCache.forget("inventory-bookworm");
+        }
+    }
+
+    @Test
+    void testInventoryKeepsStringValues() throws Exception {
+        NodeLabelCache.cachePlatformDetails(
+                "inventory-json", new PlatformDetails("[1]", "amd64", "null", null, "{\"a\":1}"));
+        try {
+            String json = inventory("?node=inventory-json");
+            assertThat(json, containsString("\"name\":\"[1]\""));
+            assertThat(json, containsString("\"version\":\"null\""));
+            assertThat(json, containsString("\"osName\":\"{\\\"a\\\":1}\""));
+            assertThat(json, containsString("\"windowsFeatureUpdate\":null"));
+        } finally {
+            NodeLabelCache.forget("inventory-json");
+        }
+    }
+
+    private String inventory(String query) throws Exception {
+        return r.createWebClient()
+                .goTo("manage/platformLabeler/inventory" + query, "application/x-ndjson")
+                .getWebResponse()
+                .getContentAsString();
+    }
+
+    @Test
+    void testLabelNodes() throws Exception {
+        new NodeLabelCache().cacheAndRefreshModel(computer, computer.getChannel());
+        PlatformDetails details = NodeLabelCache.getCachedPlatformDetails(computer.getName());
+        String label = details.getArchitectureNameVersion();
+        assertThat(NodeLabelCache.getNodesWithPlatformLabel(label), hasItem(computer.getNode().getNodeName()));
+        String json = r.createWebClient()
+                .goTo("manage/platformLabeler/labelNodes?label=" + label, "application/json")
+                .getWebResponse()
+                .getContentAsString();
+        assertThat(json, containsString("\"count\":" + NodeLabelCache.countNodesWithPlatformLabel(label)));
+    }
+}
@@ -0,0 +1,27 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import hudson.slaves.DumbSlave;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class PlatformLabelerNodeListenerTest {
+
+    @Test
+    void testDeletedNodeIsForgotten(JenkinsRule r) throws Exception {
+        DumbSlave agent = r.createOnlineSlave();
+        String name = agent.getNodeName();
+        assertThat(NodeLabelCache.nodeLabels, hasKey(name));
+
+        r.jenkins.removeNode(agent);
+
+        assertThat(NodeLabelCache.nodeLabels, not(hasKey(name)));
+        assertThat(new PlatformLabeler().findLabels(agent).isEmpty(), is(true));
+    }
+}
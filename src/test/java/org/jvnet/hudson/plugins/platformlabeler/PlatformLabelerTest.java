@@ -45,7 +45,7 @@ class PlatformLabelerTest {
         Collection<LabelAtom> expected = new HashSet<>();
         expected.add(j.jenkins.getLabelAtom("foo"));
         expected.add(j.jenkins.getLabelAtom("bar"));
-        NodeLabelCache.nodeLabels.put(j.jenkins, expected);
+        NodeLabelCache.nodeLabels.put(j.jenkins.getNodeName(), expected);
         Collection<LabelAtom> labels = new PlatformLabeler().findLabels(j.jenkins);
         assertThat(labels, is(expected));
     }
@@ -53,7 +53,7 @@ class PlatformLabelerTest {
     @Test
     void testLookupUncached(JenkinsRule j) {
         /* remove the Jenkins node from the cache */
-        NodeLabelCache.nodeLabels.remove(j.jenkins);
+        NodeLabelCache.nodeLabels.remove(j.jenkins.getNodeName());
         Collection<LabelAtom> labels = new PlatformLabeler().findLabels(j.jenkins);
         assertThat(labels, is(empty()));
     }
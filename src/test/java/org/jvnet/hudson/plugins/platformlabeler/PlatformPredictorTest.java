@@ -0,0 +1,83 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class PlatformPredictorTest {
+
+    private static final String TYPE = "hudson.slaves.DumbSlave";
+
+    private static final PlatformDetails ROCKY_ARM = new PlatformDetails("Rocky", "aarch64", "9.5", null, "Linux");
+    private static final PlatformDetails ROCKY_NEXT = new PlatformDetails("Rocky", "aarch64", "9.6", null, "Linux");
+
+    private final PlatformPredictor predictor = new PlatformPredictor();
+
+    @Test
+    void testCloudSourceStripsSuffix() {
+        assertThat(PlatformPredictor.sourceOf(TYPE, "linux-agent-x4k2q", true, null), is(TYPE + ":linux-agent"));
+        assertThat(PlatformPredictor.sourceOf(TYPE, "linux-agent-x4k2q", false, null), is(nullValue()));
+        assertThat(PlatformPredictor.sourceOf(TYPE, "agent", true, null), is(nullValue()));
+    }
+
+    @Test
+    void testPatternSource() {
+        Pattern grouped = Pattern.compile("(build-[a-z]+)-\\d+");
+        assertThat(PlatformPredictor.sourceOf(TYPE, "build-arm-17", false, grouped), is(TYPE + ":build-arm"));
+        assertThat(PlatformPredictor.sourceOf(TYPE, "test-arm-17", false, grouped), is(nullValue()));
+        Pattern whole = Pattern.compile("build-arm-.*");
+        assertThat(PlatformPredictor.sourceOf(TYPE, "build-arm-17", false, whole), is(TYPE + ":build-arm-17"));
+    }
+
+    @Test
+    void testPredictFromLearnedSource() {
+        assertThat(predictor.predict("agent-b", "source"), is(nullValue()));
+        predictor.learn("agent-a", "source", ROCKY_ARM);
+        assertThat(predictor.predict("agent-b", "source"), is(ROCKY_ARM));
+        assertThat(predictor.predict("agent-c", "other"), is(nullValue()));
+        assertThat(predictor.predict("agent-c", null), is(nullValue()));
+        assertThat(predictor.getPredictionCount(), is(1L));
+        assertThat(predictor.isPending("agent-b"), is(true));
+    }
+
+    @Test
+    void testPredictionsAreScored() {
+        predictor.learn("agent-a", "source", ROCKY_ARM);
+        predictor.predict("agent-b", "source");
+        predictor.predict("agent-c", "source");
+        predictor.learn("agent-b", "source", ROCKY_ARM);
+        predictor.learn("agent-c", "source", ROCKY_NEXT);
+        assertThat(predictor.getCorrectCount(), is(1L));
+        assertThat(predictor.getWrongCount(), is(1L));
+        assertThat(predictor.getPendingCount(), is(0));
+        /* The latest probe of the source is used for the next prediction */
+        assertThat(predictor.predict("agent-d", "source"), is(ROCKY_NEXT));
+    }
+
+    @Test
+    void testFullPredictorForgetsLeastRecentlyUsedSource() {
+        PlatformPredictor bounded = new PlatformPredictor(2);
+        bounded.learn("agent-a", "first", ROCKY_ARM);
+        bounded.learn("agent-b", "second", ROCKY_ARM);
+        /* Predicting from the first source makes the second one the least recently used */
+        assertThat(bounded.predict("agent-c", "first"), is(ROCKY_ARM));
+        bounded.learn("agent-d", "third", ROCKY_NEXT);
+        assertThat(bounded.getSourceCount(), is(2));
+        assertThat(bounded.predict("agent-e", "first"), is(ROCKY_ARM));
+        assertThat(bounded.predict("agent-f", "second"), is(nullValue()));
+        assertThat(bounded.predict("agent-g", "third"), is(ROCKY_NEXT));
+    }
+
+    @Test
+    void testWithdrawnPredictionIsNotScored() {
+        predictor.learn("agent-a", "source", ROCKY_ARM);
+        predictor.predict("agent-b", "source");
+        assertThat(predictor.withdraw("agent-b"), is(true));
+        assertThat(predictor.withdraw("agent-b"), is(false));
+        predictor.learn("agent-b", "source", ROCKY_NEXT);
+        assertThat(predictor.getWrongCount(), is(0L));
+    }
+}
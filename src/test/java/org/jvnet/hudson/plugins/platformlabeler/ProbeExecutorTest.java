@@ -0,0 +1,47 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+class ProbeExecutorTest {
+
+    @Test
+    void testCallReturnsResult() throws Exception {
+        ProbeExecutor executor = new ProbeExecutor(2);
+        assertThat(executor.call(() -> "probed", 2), is("probed"));
+    }
+
+    @Test
+    void testCallRethrowsIOException() {
+        ProbeExecutor executor = new ProbeExecutor(2);
+        IOException thrown = assertThrows(
+                IOException.class,
+                () -> executor.call(
+                        () -> {
+                            throw new IOException("Oops");
+                        },
+                        2));
+        assertThat(thrown.getMessage(), is("Oops"));
+    }
+
+    @Test
+    void testCallResizesPool() throws Exception {
+        ProbeExecutor executor = new ProbeExecutor(2);
+        executor.call(() -> null, 5);
+        assertThat(executor.getPoolSize(), is(5));
+        executor.call(() -> null, 1);
+        assertThat(executor.getPoolSize(), is(1));
+    }
+
+    @Test
+    void testResizeRejectsZeroThreads() {
+        ProbeExecutor executor = new ProbeExecutor(0);
+        assertThat(executor.getPoolSize(), is(1));
+        executor.resize(-3);
+        assertThat(executor.getPoolSize(), is(1));
+    }
+}
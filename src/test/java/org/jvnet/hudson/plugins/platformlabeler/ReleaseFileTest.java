@@ -0,0 +1,62 @@
+package org.jvnet.hudson.plugins.platformlabeler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReleaseFileTest {
+
+    @TempDir
+    private File tempDir;
+
+    @Test
+    void testReadOsRelease() throws Exception {
+        File osRelease = new File(getClass().getResource("ubuntu/24.04/os-release").toURI());
+        ReleaseFile release = ReleaseFile.read(osRelease);
+        assertThat(release.exists(), is(true));
+        assertThat(release.get("ID"), is("ubuntu"));
+        assertThat(release.get("VERSION_ID"), is("24.04"));
+        assertThat(release.getValues(), hasEntry("ID", "ubuntu"));
+        assertThat(release.get("BUILD_ID"), is(nullValue()));
+    }
+
+    @Test
+    void testQuotesCommentsAndLastAssignment() throws Exception {
+        File file = new File(tempDir, "os-release");
+        String content = "# ID=comment\nID='first'\nNAME=\"A B\"\nID=second\nURL=https://example.com/?a=b\n";
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        ReleaseFile release = ReleaseFile.read(file);
+        assertThat(release.get("ID"), is("second"));
+        assertThat(release.get("NAME"), is("A B"));
+        assertThat(release.get("URL"), is("https://example.com/?a=b"));
+        assertThat(release.get("# ID"), is(nullValue()));
+        assertThat(release.getLines().size(), is(5));
+    }
+
+    @Test
+    void testMissingFile() {
+        ReleaseFile release = ReleaseFile.read(new File(tempDir, "missing"));
+        assertThat(release.exists(), is(false));
+        assertThat(release.getLines().isEmpty(), is(true));
+        assertThat(ReleaseFile.read(null).exists(), is(false));
+    }
+
+    @Test
+    void testTaskReadsReleaseFileOnce() throws Exception {
+        File file = new File(tempDir, "os-release");
+        Files.writeString(file, "ID=debian\nVERSION_ID=\"12\"\n", StandardCharsets.UTF_8);
+        PlatformDetailsTask task = new PlatformDetailsTask();
+        task.setOsReleaseFile(file);
+        assertThat(task.getReleaseIdentifier("ID"), is("Debian"));
+        Files.writeString(file, "ID=ubuntu\nVERSION_ID=\"24.04\"\n", StandardCharsets.UTF_8);
+        assertThat(task.getReleaseIdentifier("ID"), is("Debian"));
+        assertThat(task.getReleaseIdentifier("VERSION_ID"), is("12"));
+    }
+}